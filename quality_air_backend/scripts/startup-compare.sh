@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Compares the startup of the fat jar with the AOT-processed jar, with and
+# without its class data sharing archive.
+#
+# Both artifacts are built, then each is started several times. For each run
+# the startup time reported by Spring Boot and the time from launching the JVM
+# to the first successful GET /user are recorded, and the medians are printed.
+#
+# The database is configured through the environment, for example
+# SPRING_DATASOURCE_URL, SPRING_DATASOURCE_USERNAME and SPRING_DATASOURCE_PASSWORD.
+#
+# Usage: scripts/startup-compare.sh [runs]
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAR=quality_air_backend-0.0.1-SNAPSHOT.jar
+WORK=target/startup-compare
+
+echo "Building the fat jar..."
+mvn -B -q -DskipTests clean package
+mkdir -p "$WORK/fat"
+cp "target/$JAR" "$WORK/fat/"
+
+echo "Building the AOT-processed jar and its CDS archive..."
+mvn -B -q -Paot -DskipTests package
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+# Starts one mode several times and prints its median timings.
+# Arguments: the mode name, the working directory, then the java options.
+measure() {
+    local name=$1 dir=$2
+    shift 2
+    local started_file="$WORK/$name.started" first_file="$WORK/$name.first"
+    : > "$started_file"
+    : > "$first_file"
+    for run in $(seq "$RUNS"); do
+        local log="$WORK/$name-$run.log"
+        local start
+        start=$(now_ms)
+        (cd "$dir" && exec java "$@" -jar "$JAR" --server.port="$PORT") > "$log" 2>&1 &
+        local pid=$!
+        until curl -sf -o /dev/null "http://localhost:$PORT/user"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$name did not start, see $log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        echo $(( $(now_ms) - start )) >> "$first_file"
+        grep -o 'Started QualityAirBackendApplication in [0-9.]*' "$log" | awk '{ print int($4 * 1000) }' >> "$started_file"
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+    done
+    printf '%-10s %15s %22s\n' "$name" "$(median < "$started_file") ms" "$(median < "$first_file") ms"
+}
+
+echo
+printf '%-10s %15s %22s\n' "mode" "startup" "time to first request"
+measure fat "$WORK/fat"
+measure aot target/cds -Dspring.aot.enabled=true
+measure aot+cds target/cds -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true
@@ -0,0 +1,126 @@
+package com.quality_air.quality_air_backend.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.quality_air.quality_air_backend.utilities.UserSummarySerializer;
+
+/**
+ * Benchmark of the encodings of a page of users returned by GET /user.
+ *
+ * Compares the JSON written by introspecting the record, the JSON written by
+ * the pre-built serializer, the CBOR written by the same serializer, and the
+ * JSON compressed with gzip as done by the server above its size threshold.
+ * The time is the CPU cost of one response; the bytes and responses counters
+ * give the size of a response as their ratio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPayloadBenchmark {
+
+    @Param({ "50", "500" })
+    private int size;
+
+    private ObjectMapper reflectiveJson;
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private List<UserSummary> page;
+
+    /**
+     * Size of the encoded responses, reported next to the time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+
+        public long bytes;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            responses = 0;
+        }
+
+        byte[] record(byte[] body) {
+            bytes += body.length;
+            responses++;
+            return body;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        SimpleModule serializers = new SimpleModule().addSerializer(UserSummary.class, new UserSummarySerializer());
+        reflectiveJson = Jackson2ObjectMapperBuilder.json().build();
+        json = Jackson2ObjectMapperBuilder.json().modulesToInstall(serializers).build();
+        cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).modulesToInstall(serializers).build();
+        page = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            page.add(new UserSummary(i, "Juan" + i, "Pérez", "juanp" + i, i % 7 != 0, i % 5));
+        }
+    }
+
+    /**
+     * Writes the page as JSON by introspecting the record.
+     */
+    @Benchmark
+    public byte[] jsonReflective(Payload payload) throws IOException {
+        return payload.record(reflectiveJson.writeValueAsBytes(page));
+    }
+
+    /**
+     * Writes the page as JSON with the pre-built serializer.
+     */
+    @Benchmark
+    public byte[] json(Payload payload) throws IOException {
+        return payload.record(json.writeValueAsBytes(page));
+    }
+
+    /**
+     * Writes the page as CBOR, as done for Accept: application/cbor.
+     */
+    @Benchmark
+    public byte[] cbor(Payload payload) throws IOException {
+        return payload.record(cbor.writeValueAsBytes(page));
+    }
+
+    /**
+     * Writes the page as JSON compressed with gzip, as done for
+     * Accept-Encoding: gzip.
+     */
+    @Benchmark
+    public byte[] jsonGzip(Payload payload) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+            json.writeValue(gzip, page);
+        }
+        return payload.record(body.toByteArray());
+    }
+}
@@ -0,0 +1,51 @@
+package com.quality_air.quality_air_backend.entities;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the parameterized User constructor.
+ *
+ * The constructor creates a SimpleDateFormat on every call to parse the date
+ * of birth. The date is also parsed with a shared DateTimeFormatter as a
+ * reference for the cost of the parsing alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserConstructorBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private String date = "06/09/2024";
+
+    /**
+     * Creates a user from strings, parsing the date with a new SimpleDateFormat.
+     */
+    @Benchmark
+    public User construct() {
+        return new User("Juan", "Pérez", "12345678A", date, "juan@example.com", "juanp", "password123", true);
+    }
+
+    /**
+     * Parses the same date with a shared, thread-safe formatter.
+     */
+    @Benchmark
+    public LocalDate parseWithSharedFormatter() {
+        return LocalDate.parse(date, DATE_FORMAT);
+    }
+}
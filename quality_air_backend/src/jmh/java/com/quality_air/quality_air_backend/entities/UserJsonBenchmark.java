@@ -0,0 +1,63 @@
+package com.quality_air.quality_air_backend.entities;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmark of the JSON serialization and deserialization of a user.
+ *
+ * The object mapper is built with the same defaults Spring MVC uses to read
+ * and write request and response bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private String json;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        user = new User("Juan", "Pérez", "12345678A", "06/09/2024", "juan@example.com", "juanp",
+                "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z4xV4u2Ww1Gmv3rF1ZeK2Y6e", true);
+        user.setId(1);
+        user.setVersion(3);
+        json = objectMapper.writeValueAsString(user);
+    }
+
+    /**
+     * Writes a user as JSON, as done for the response of PUT /user/{id}.
+     */
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(user);
+    }
+
+    /**
+     * Reads a user from JSON, as done for the body of POST /user.
+     */
+    @Benchmark
+    public User deserialize() throws JsonProcessingException {
+        return objectMapper.readValue(json, User.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.quality_air.quality_air_backend.services;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.quality_air.quality_air_backend.dto.UserSummary;
+
+/**
+ * End-to-end benchmark of a login against an embedded H2 database.
+ *
+ * Each call looks up the admin user and verifies its password with the
+ * configured bcrypt cost, so the result is dominated by the hashing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserLoginBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup
+    public void setup() {
+        context = UserServiceBenchmark.start();
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Logs in as the admin user with its nickname, as done by POST /user/login.
+     */
+    @Benchmark
+    public Optional<UserSummary> login() {
+        return userService.login("admin", "admin");
+    }
+}
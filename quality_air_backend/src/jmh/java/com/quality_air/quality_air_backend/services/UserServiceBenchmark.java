@@ -0,0 +1,82 @@
+package com.quality_air.quality_air_backend.services;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.quality_air.quality_air_backend.QualityAirBackendApplication;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+
+/**
+ * Benchmark of the UserService read paths.
+ *
+ * The application is started without a web server against an embedded H2
+ * database, and users are read by ID through the service proxy, so the
+ * cache, the transaction and the query are all included. The cache
+ * parameter runs the benchmark with the Caffeine cache and without any cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({ "caffeine", "none" })
+    private String cache;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup
+    public void setup() {
+        context = start("--spring.cache.type=" + cache);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Reads the admin user by ID, as done by GET /user/{id}.
+     */
+    @Benchmark
+    public Optional<UserSummary> getId() {
+        return userService.getId(1);
+    }
+
+    /**
+     * Starts the application for a benchmark.
+     *
+     * @param args extra command-line arguments, overriding the profile properties.
+     * @return the running application context.
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        String[] defaults = { "--sql.trace.enabled=false", "--logging.level.root=WARN" };
+        String[] all = new String[defaults.length + args.length];
+        System.arraycopy(defaults, 0, all, 0, defaults.length);
+        System.arraycopy(args, 0, all, defaults.length, args.length);
+        return new SpringApplicationBuilder(QualityAirBackendApplication.class)
+                .profiles("h2")
+                .web(WebApplicationType.NONE)
+                .run(all);
+    }
+}
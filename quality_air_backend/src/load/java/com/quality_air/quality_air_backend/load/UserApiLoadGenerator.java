@@ -0,0 +1,371 @@
+package com.quality_air.quality_air_backend.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.quality_air.quality_air_backend.QualityAirBackendApplication;
+import com.quality_air.quality_air_backend.services.PasswordService;
+
+/**
+ * Load generator for the user API.
+ *
+ * The application is started against an embedded H2 database seeded with
+ * synthetic users. Requests to GET /user, GET /user/{id} and POST
+ * /user/login are then sent at a fixed arrival rate in the configured mix,
+ * whether or not earlier requests have completed. Each latency is measured
+ * from the time the request was scheduled to be sent, so a stalled server is
+ * charged for the requests it delayed and the percentiles are not hidden by
+ * coordinated omission.
+ *
+ * Throughput and latency percentiles of every endpoint are printed and
+ * written as JSON to the report file. They are then compared with the
+ * baseline: the run fails if a percentile is slower, or the throughput lower,
+ * than the baseline by more than the tolerance, or if any request failed.
+ *
+ * The generator is configured with system properties:
+ * <ul>
+ * <li>load.users: number of synthetic users to seed.</li>
+ * <li>load.rate: requests sent per second.</li>
+ * <li>load.warmup: duration of the warm-up, not measured.</li>
+ * <li>load.duration: duration of the measurement.</li>
+ * <li>load.mix: weight of each endpoint, such as id=80,page=18,login=2.</li>
+ * <li>load.baseline: the baseline file.</li>
+ * <li>load.report: the report file.</li>
+ * <li>load.tolerance: the allowed regression, as a fraction of the baseline.</li>
+ * <li>load.update-baseline: whether to store the run as the new baseline.</li>
+ * </ul>
+ *
+ * Run it with: {@code mvn -Pload -DskipTests verify}
+ */
+public final class UserApiLoadGenerator {
+
+    private static final String PASSWORD = "password123";
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    /**
+     * Endpoints the generator can call.
+     */
+    enum Endpoint {
+        /** GET /user, the first page of active users. */
+        PAGE,
+        /** GET /user/{id} for a random user. */
+        ID,
+        /** POST /user/login for a random user. */
+        LOGIN;
+
+        String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * Settings of a run.
+     *
+     * @param users          the number of synthetic users.
+     * @param rate           the requests sent per second.
+     * @param warmup         the duration of the warm-up.
+     * @param duration       the duration of the measurement.
+     * @param mix            the weight of each endpoint.
+     * @param baseline       the baseline file.
+     * @param report         the report file.
+     * @param tolerance      the allowed regression, as a fraction of the baseline.
+     * @param updateBaseline whether to store the run as the new baseline.
+     */
+    record Settings(int users, int rate, Duration warmup, Duration duration, Map<Endpoint, Integer> mix,
+            File baseline, File report, double tolerance, boolean updateBaseline) {
+
+        static Settings fromSystemProperties() {
+            Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+            for (String entry : System.getProperty("load.mix", "id=80,page=18,login=2").split(",")) {
+                String[] parts = entry.trim().split("=");
+                mix.put(Endpoint.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+            }
+            return new Settings(Integer.getInteger("load.users", 10_000),
+                    Integer.getInteger("load.rate", 100),
+                    Duration.parse(System.getProperty("load.warmup", "PT10S")),
+                    Duration.parse(System.getProperty("load.duration", "PT30S")),
+                    mix,
+                    new File(System.getProperty("load.baseline", "src/load/baseline.json")),
+                    new File(System.getProperty("load.report", "target/load-report.json")),
+                    Double.parseDouble(System.getProperty("load.tolerance", "0.25")),
+                    Boolean.getBoolean("load.update-baseline"));
+        }
+
+        /**
+         * Chooses the endpoint of the next request according to the mix.
+         *
+         * @param random the source of randomness.
+         * @return a random endpoint.
+         */
+        Endpoint pick(SplittableRandom random) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int value = random.nextInt(total);
+            for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+                value -= entry.getValue();
+                if (value < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty endpoint mix");
+        }
+    }
+
+    /**
+     * Latencies and errors of one endpoint.
+     */
+    private static final class Recorder {
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private final Settings settings;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    // Fixed seed, so every run sends the same sequence of requests
+    private final SplittableRandom random = new SplittableRandom(42);
+    private String base;
+
+    private UserApiLoadGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        List<String> regressions;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QualityAirBackendApplication.class)
+                .profiles("h2")
+                .run("--server.port=0",
+                        // Every request comes from one address, which a real client population does not
+                        "--login.throttle.ip.limit=1000000",
+                        "--sql.trace.enabled=false",
+                        "--logging.level.root=WARN")) {
+            UserApiLoadGenerator generator = new UserApiLoadGenerator(settings);
+            generator.seed(context.getBean(JdbcTemplate.class), context.getBean(PasswordService.class));
+            generator.base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            System.out.println("LOAD: warming up for " + settings.warmup());
+            generator.run(settings.warmup());
+            System.out.println("LOAD: measuring " + settings.rate() + " req/s for " + settings.duration());
+            Map<Endpoint, Recorder> recorders = generator.run(settings.duration());
+            JsonNode report = generator.report(recorders);
+            regressions = generator.compare(report);
+        }
+        if (!regressions.isEmpty()) {
+            regressions.forEach(regression -> System.out.println("LOAD: REGRESSION " + regression));
+            System.exit(1);
+        }
+        System.out.println("LOAD: COMPLETED successfully.");
+        System.exit(0);
+    }
+
+    /**
+     * Inserts the synthetic users, who all share one password.
+     *
+     * @param jdbcTemplate    the template of the running application.
+     * @param passwordService the service hashing the shared password.
+     */
+    private void seed(JdbcTemplate jdbcTemplate, PasswordService passwordService) {
+        String hash = passwordService.hash(PASSWORD);
+        Date date = Date.valueOf("2012-10-28");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < settings.users(); i++) {
+            rows.add(new Object[] { userId(i), "Name" + i, "LastName" + i, "DNI" + i, date, "user" + i + "@example.com",
+                    "user" + i, hash, true });
+            if (rows.size() == 1_000 || i == settings.users() - 1) {
+                jdbcTemplate.batchUpdate("insert into user (id, name, last_name, dni, date, email, nick_name, password, "
+                        + "status, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+                rows.clear();
+            }
+        }
+        System.out.println("LOAD: seeded " + settings.users() + " users");
+    }
+
+    /**
+     * Sends requests at the configured rate for a period of time.
+     *
+     * @param period the time during which requests are sent.
+     * @return the latencies and errors of each endpoint.
+     */
+    private Map<Endpoint, Recorder> run(Duration period) {
+        Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder());
+        }
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long requests = period.toNanos() / interval;
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long intended = start + i * interval;
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Endpoint endpoint = settings.pick(random);
+            Recorder recorder = recorders.get(endpoint);
+            pending.add(client.sendAsync(request(endpoint), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                        recorder.latencies.recordValue(Math.min(latency, recorder.latencies.getHighestTrackableValue()));
+                        if (error != null || response.statusCode() >= 400) {
+                            recorder.errors.increment();
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        return recorders;
+    }
+
+    /**
+     * Builds a request to an endpoint for a random user.
+     *
+     * @param endpoint the endpoint to call.
+     * @return the request.
+     */
+    private HttpRequest request(Endpoint endpoint) {
+        int user = random.nextInt(settings.users());
+        HttpRequest.Builder builder = switch (endpoint) {
+            case PAGE -> HttpRequest.newBuilder(URI.create(base + "/user"));
+            case ID -> HttpRequest.newBuilder(URI.create(base + "/user/" + userId(user)));
+            case LOGIN -> HttpRequest.newBuilder(URI.create(base + "/user/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("identifier=user" + user + "&password=" + PASSWORD));
+        };
+        return builder.timeout(Duration.ofSeconds(30)).build();
+    }
+
+    /**
+     * Prints the results of a run and writes them to the report file.
+     *
+     * @param recorders the latencies and errors of each endpoint.
+     * @return the report.
+     */
+    private JsonNode report(Map<Endpoint, Recorder> recorders) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        double seconds = settings.duration().toNanos() / 1e9;
+        System.out.printf("LOAD: %-6s %8s %10s %9s %9s %9s %9s %9s %7s%n", "name", "count", "req/s", "p50 ms",
+                "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (Map.Entry<Endpoint, Recorder> entry : recorders.entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", latencies.getTotalCount());
+            result.put("throughput", latencies.getTotalCount() / seconds);
+            for (double percentile : PERCENTILES) {
+                result.put(percentileKey(percentile), latencies.getValueAtPercentile(percentile) / 1000.0);
+            }
+            result.put("max_ms", latencies.getMaxValue() / 1000.0);
+            result.put("errors", entry.getValue().errors.sum());
+            endpoints.put(entry.getKey().key(), result);
+            System.out.printf("LOAD: %-6s %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n", entry.getKey().key(),
+                    result.get("count"), result.get("throughput"), result.get("p50_ms"), result.get("p90_ms"),
+                    result.get("p99_ms"), result.get("p99.9_ms"), result.get("max_ms"), result.get("errors"));
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", settings.users());
+        report.put("rate", settings.rate());
+        report.put("duration", settings.duration().toString());
+        report.put("mix", settings.mix().entrySet().stream()
+                .collect(LinkedHashMap::new, (map, e) -> map.put(e.getKey().key(), e.getValue()), Map::putAll));
+        report.put("endpoints", endpoints);
+        JsonNode json = objectMapper.valueToTree(report);
+        settings.report().getParentFile().mkdirs();
+        objectMapper.writeValue(settings.report(), json);
+        System.out.println("LOAD: report written to " + settings.report());
+        return json;
+    }
+
+    /**
+     * Compares a run with the baseline, or stores it as the new baseline.
+     *
+     * @param report the report of the run.
+     * @return the regressions found, empty if there are none.
+     */
+    private List<String> compare(JsonNode report) throws IOException {
+        List<String> regressions = new ArrayList<>();
+        report.get("endpoints").fields().forEachRemaining(entry -> {
+            if (entry.getValue().get("errors").asLong() > 0) {
+                regressions.add(entry.getKey() + ": " + entry.getValue().get("errors") + " requests failed");
+            }
+        });
+        if (settings.updateBaseline()) {
+            objectMapper.writeValue(settings.baseline(), report);
+            System.out.println("LOAD: baseline written to " + settings.baseline());
+            return regressions;
+        }
+        if (!settings.baseline().exists()) {
+            System.out.println("LOAD: no baseline at " + settings.baseline() + ", record one with -Dload.update-baseline=true");
+            return regressions;
+        }
+        JsonNode baseline = objectMapper.readTree(settings.baseline());
+        for (String setting : new String[] { "users", "rate", "duration", "mix" }) {
+            if (!baseline.get(setting).equals(report.get(setting))) {
+                System.out.println("LOAD: baseline was recorded with a different " + setting + ", not compared");
+                return regressions;
+            }
+        }
+        report.get("endpoints").fields().forEachRemaining(entry -> {
+            JsonNode expected = baseline.get("endpoints").get(entry.getKey());
+            if (expected == null) {
+                return;
+            }
+            for (double percentile : PERCENTILES) {
+                String key = percentileKey(percentile);
+                double limit = expected.get(key).asDouble() * (1 + settings.tolerance());
+                if (entry.getValue().get(key).asDouble() > limit) {
+                    regressions.add(String.format("%s: %s %.2f exceeds %.2f", entry.getKey(), key,
+                            entry.getValue().get(key).asDouble(), limit));
+                }
+            }
+            double minimum = expected.get("throughput").asDouble() * (1 - settings.tolerance());
+            if (entry.getValue().get("throughput").asDouble() < minimum) {
+                regressions.add(String.format("%s: throughput %.1f req/s is below %.1f", entry.getKey(),
+                        entry.getValue().get("throughput").asDouble(), minimum));
+            }
+        });
+        System.out.println("LOAD: compared with baseline " + settings.baseline());
+        return regressions;
+    }
+
+    private static String percentileKey(double percentile) {
+        return "p" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile))
+                + "_ms";
+    }
+
+    /**
+     * Returns the ID of a synthetic user, leaving ID 1 to the admin user.
+     *
+     * @param index the index of the user, from zero.
+     * @return the user ID.
+     */
+    private static int userId(int index) {
+        return index + 2;
+    }
+}
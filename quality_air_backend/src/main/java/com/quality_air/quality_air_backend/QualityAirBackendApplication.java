@@ -2,23 +2,36 @@ package com.quality_air.quality_air_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import com.quality_air.quality_air_backend.utilities.AppRuntimeHints;
 
 /**
  * Entry point for the Quality Air Backend application.
  * 
  * This class is responsible for starting the Spring Boot application.
  * It also provides the URL for the Swagger documentation in the console output.
+ * The startup steps are recorded for the startup timing report.
  */
 @SpringBootApplication
+@ImportRuntimeHints(AppRuntimeHints.class)
 public class QualityAirBackendApplication {
 
+    /**
+     * Maximum number of startup steps recorded.
+     */
+    private static final int STARTUP_STEPS = 10_000;
+
     /**
      * Main method to run the Quality Air Backend application.
      * 
      * @param args command-line arguments passed during the application startup.
      */
     public static void main(String[] args) {
-        SpringApplication.run(QualityAirBackendApplication.class, args);
+        SpringApplication application = new SpringApplication(QualityAirBackendApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
         
         // Show the SWAGGER documentation url in the console
         System.out.println("---------- SWAGGER Documentation ------------");
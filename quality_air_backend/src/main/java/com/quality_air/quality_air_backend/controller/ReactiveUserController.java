@@ -0,0 +1,93 @@
+package com.quality_air.quality_air_backend.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.quality_air.quality_air_backend.dto.UserPage;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.services.UserService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive controller class for reading User entities.
+ * 
+ * This class mirrors the read endpoints of {@link UserController} with
+ * non-blocking return types. The blocking service calls run on the bounded
+ * elastic scheduler, so request threads are released while the database is
+ * queried.
+ */
+@Tag(name = "User (reactive)", description = "Reactive users read API")
+@RestController
+@RequestMapping("/rx/user")
+public class ReactiveUserController {
+
+    @Autowired
+    private UserService userservice;
+
+    /**
+     * Streams every active user in the database.
+     * 
+     * Users are read page by page with keyset pagination, and the next page is
+     * only read once the client has consumed the previous one. Requested as
+     * newline-delimited JSON the users are streamed as they are read; requested
+     * as JSON they are collected into a single array.
+     * 
+     * @return the active users.
+     */
+    @Operation(description = "This service streams every active user in the database, reading the next page only when the client consumes the previous one.", responses = {
+            @ApiResponse(responseCode = "200", description = "Active users successfully streamed", content = {
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = UserSummary.class)),
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = UserSummary.class)) }),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @GetMapping(produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<UserSummary> getAll() {
+        return Flux.<List<UserSummary>, String>generate(() -> "", (cursor, sink) -> {
+            UserPage page = userservice.getPage(cursor, null);
+            sink.next(page.items());
+            if (page.next() == null) {
+                sink.complete();
+                return cursor;
+            }
+            return page.next();
+        }).subscribeOn(Schedulers.boundedElastic()).flatMapIterable(items -> items, 1);
+    }
+
+    /**
+     * Retrieves a user by their ID.
+     * 
+     * @param id the ID of the user to retrieve.
+     * @return the user if found, otherwise 404.
+     */
+    @Operation(description = "This service returns a specific user based on their ID.", parameters = {
+            @Parameter(name = "id", description = "User ID to search", schema = @Schema(type = "integer")) }, responses = {
+            @ApiResponse(responseCode = "200", description = "User found successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSummary.class))),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content()),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+    @CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
+    @GetMapping(path = { "/{id}" })
+    public Mono<ResponseEntity<UserSummary>> getId(@PathVariable("id") int id) {
+        return Mono.fromCallable(() -> userservice.getId(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(user -> user.map(found -> ResponseEntity.ok().eTag(Long.toString(found.version())).body(found))
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+}
@@ -6,18 +6,41 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.quality_air.quality_air_backend.dto.UserBatchResult;
+import com.quality_air.quality_air_backend.dto.UserChange;
+import com.quality_air.quality_air_backend.dto.UserExport;
+import com.quality_air.quality_air_backend.dto.UserPage;
+import com.quality_air.quality_air_backend.dto.UserPatch;
+import com.quality_air.quality_air_backend.dto.UserSummary;
 import com.quality_air.quality_air_backend.entities.User;
+import com.quality_air.quality_air_backend.security.SessionClaims;
+import com.quality_air.quality_air_backend.security.SessionToken;
+import com.quality_air.quality_air_backend.security.SessionTokenFilter;
+import com.quality_air.quality_air_backend.security.SessionTokenService;
+import com.quality_air.quality_air_backend.services.UserChangeFeed;
 import com.quality_air.quality_air_backend.services.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,21 +62,94 @@ import io.swagger.v3.oas.annotations.Parameter;
 @RequestMapping("/user")
 public class UserController {
 
+    /**
+     * Response header carrying the cursor for the next page of users.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private UserService userservice;
 
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
     /**
-     * Retrieves a list of all active users in the database.
+     * Retrieves one page of active users in the database.
+     * 
+     * The cursor for the following page is returned in the X-Next-Cursor header,
+     * which is absent on the last page. The page carries an ETag derived from the
+     * IDs and versions of its users; when it matches If-None-Match, 304 is
+     * returned without fetching or serializing the users.
      * 
-     * @return a list of active users.
+     * @param cursor  the cursor returned with the previous page, if any.
+     * @param limit   the maximum number of users to return.
+     * @param request the current request, used for conditional GET.
+     * @return a page of active users, or null if the page was not modified.
      */
-    @Operation(description = "This service returns a list of all active users in the database.", responses = {
-            @ApiResponse(responseCode = "200", description = "List of active users successfully returned", content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+    @Operation(description = "This service returns a page of active users in the database. The cursor for the next page is returned in the X-Next-Cursor header.", parameters = {
+            @Parameter(name = "cursor", description = "Cursor returned with the previous page", schema = @Schema()),
+            @Parameter(name = "limit", description = "Maximum number of users to return", schema = @Schema(type = "integer")) }, responses = {
+            @ApiResponse(responseCode = "200", description = "Page of active users successfully returned", content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSummary.class))),
+            @ApiResponse(responseCode = "304", description = "Page not modified since the ETag in If-None-Match", content = @Content()),
+            @ApiResponse(responseCode = "400", description = "Bad request. The cursor or limit is invalid.", content = @Content()),
             @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
-    @CrossOrigin(origins = "*")
+    @CrossOrigin(origins = "*", exposedHeaders = { NEXT_CURSOR_HEADER, HttpHeaders.ETAG })
     @GetMapping
-    public List<User> getAll() {
-        return userservice.getAll();
+    public ResponseEntity<List<UserSummary>> getAll(@RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(userservice.getPageTag(cursor, limit))) {
+            return null;
+        }
+        UserPage page = userservice.getPage(cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(page.etag());
+        if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Exports every user in the database as newline-delimited JSON, without their passwords.
+     * 
+     * The response is streamed while users are read from the database, so the
+     * export never holds the whole table in memory.
+     * 
+     * @return the streaming response body, one JSON user per line.
+     */
+    @Operation(description = "This service exports every user in the database as newline-delimited JSON.", responses = {
+            @ApiResponse(responseCode = "200", description = "Users successfully streamed", content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = UserExport.class))),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = userservice::export;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Streams the changes of users as server-sent events.
+     * 
+     * Each event carries the type of change and the user ID, so clients fetch
+     * only the changed users instead of polling the list. A client reconnecting
+     * with Last-Event-ID receives the changes it missed, or a "reset" event if
+     * it must reload the users. Clients that fall too far behind are
+     * disconnected.
+     * 
+     * @param lastEventId the ID of the last event received, if reconnecting.
+     * @return the emitter of the change events.
+     */
+    @Operation(description = "This service streams the creations and updates of users as server-sent events. Clients reconnecting with Last-Event-ID receive the changes they missed, or a reset event if they must reload the users.", parameters = {
+            @Parameter(name = "Last-Event-ID", description = "ID of the last event received", schema = @Schema()) }, responses = {
+            @ApiResponse(responseCode = "200", description = "Stream of user changes", content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = UserChange.class))),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return userChangeFeed.subscribe(lastEventId);
     }
 
     /**
@@ -69,63 +165,200 @@ public class UserController {
         return userservice.insert(enter);
     }
 
+    /**
+     * Creates a batch of new users in the database.
+     * 
+     * Items that fail are reported individually and do not prevent the rest of
+     * the batch from being created.
+     * 
+     * @param enter the User entities to be created.
+     * @return one result per submitted user, in the same order.
+     */
+    @Operation(description = "This service allows you to create many users in the database in a single call.", requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Array of new users", required = true, content = @Content(examples = @ExampleObject(summary = "Two users", value = "[{\"name\": \"Juan\", \"lastName\": \"Pérez\", \"dni\": \"12345678A\", \"date\": \"2024-09-06\", \"email\": \"juan@example.com\", \"nickName\": \"juanp\", \"password\": \"password123\", \"status\": true}, {\"name\": \"Ana\", \"lastName\": \"Lopez\", \"dni\": \"98765432B\", \"date\": \"2024-09-06\", \"email\": \"ana@example.com\", \"nickName\": \"ana\", \"password\": \"password456\", \"status\": true}]"))), responses = {
+            @ApiResponse(responseCode = "200", description = "Result of each submitted user", content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserBatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request. The batch is too large.", content = @Content()),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @PostMapping("/batch")
+    public List<UserBatchResult> insertBatch(@RequestBody List<User> enter) {
+        return userservice.insertBatch(enter);
+    }
+
     /**
      * Updates an existing user in the database.
      * 
-     * @param enter the User entity with updated data.
-     * @param id    the ID of the user to be updated.
-     * @return the updated User entity.
+     * When an If-Match header is sent, the update only succeeds if the user
+     * still has the version in that ETag.
+     * 
+     * @param enter   the User entity with updated data.
+     * @param id      the ID of the user to be updated.
+     * @param ifMatch the ETag of the version the client last read, if any.
+     * @return the updated User entity with its new ETag.
      */
     @Operation(description = "This service allows you to update a database user.", requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User data to update", required = true, content = @Content(examples = @ExampleObject(summary = "Example of a user with all fields", value = "{\"name\": \"Juan\", \"lastName\": \"Pérez\", \"dni\": \"12345678A\", \"date\": \"2024-09-06T15:50:14.462Z\", \"email\": \"juan@example.com\", \"nickName\": \"juanp\", \"password\": \"password123\", \"status\": true}"))), parameters = {
-            @Parameter(name = "id", description = "User ID to update", required = true, schema = @Schema(type = "integer")) }, responses = {
+            @Parameter(name = "id", description = "User ID to update", required = true, schema = @Schema(type = "integer")),
+            @Parameter(name = "If-Match", description = "ETag of the version of the user last read", schema = @Schema()) }, responses = {
             @ApiResponse(responseCode = "200", description = "User successfully updated", content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
             @ApiResponse(responseCode = "400", description = "Bad Request. The ID may not exist or the user data may be incorrect.", content = @Content()),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content()),
+            @ApiResponse(responseCode = "412", description = "Precondition failed. The user was modified since the ETag in If-Match.", content = @Content()),
             @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
-    @CrossOrigin(origins = "*")
+    @CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
     @PutMapping(path = { "/{id}" })
-    public User update(@RequestBody User enter, @PathVariable("id") int id) {
+    public ResponseEntity<User> update(@RequestBody User enter, @PathVariable("id") int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         enter.setId(id);
-        return userservice.update(enter);
+        User updated = userservice.update(enter, parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(Long.toString(updated.getVersion())).body(updated);
+    }
+
+    /**
+     * Updates only the supplied fields of an existing user.
+     * 
+     * @param enter the fields to update. Fields left null are not modified.
+     * @param id    the ID of the user to be updated.
+     * @return an empty response with status 204, or 404 if the user does not exist.
+     */
+    @Operation(description = "This service allows you to update only some fields of a database user.", requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User fields to update", required = true, content = @Content(examples = @ExampleObject(summary = "Deactivate a user", value = "{\"status\": false}"))), parameters = {
+            @Parameter(name = "id", description = "User ID to update", required = true, schema = @Schema(type = "integer")) }, responses = {
+            @ApiResponse(responseCode = "204", description = "User successfully updated", content = @Content()),
+            @ApiResponse(responseCode = "400", description = "Bad Request. No fields to update.", content = @Content()),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content()),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @PatchMapping(path = { "/{id}" })
+    public ResponseEntity<Void> patch(@RequestBody UserPatch enter, @PathVariable("id") int id) {
+        return userservice.patch(id, enter) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
     /**
      * Retrieves a specific user based on their ID.
      * 
+     * The user carries its version as ETag; when it matches If-None-Match, 304
+     * is returned without serializing the user.
+     * 
      * @param id the ID of the user to retrieve.
-     * @return an Optional containing the user if found, otherwise empty.
+     * @return the user if found, otherwise 404.
      */
     @Operation(description = "This service returns a specific user based on their ID.", parameters = {
             @Parameter(name = "id", description = "User ID to search", schema = @Schema(type = "integer")) }, responses = {
-            @ApiResponse(responseCode = "200", description = "User found successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "User found successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSummary.class))),
+            @ApiResponse(responseCode = "304", description = "User not modified since the ETag in If-None-Match", content = @Content()),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content()),
             @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
-    @CrossOrigin(origins = "*")
+    @CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
     @GetMapping(path = { "/{id}" })
-    public Optional<User> getId(@PathVariable("id") int id) {
-        return userservice.getId(id);
+    public ResponseEntity<UserSummary> getId(@PathVariable("id") int id) {
+        return userservice.getId(id)
+                .map(user -> ResponseEntity.ok().eTag(Long.toString(user.version())).body(user))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
      * Authenticates a user using their email or nickname and password.
      * 
+     * On success a signed session token is returned; sending it as a Bearer
+     * token lets later calls identify the user without a database lookup.
+     * 
      * @param identifier the email or nickname of the user.
      * @param password   the password of the user.
-     * @return a ResponseEntity containing the authentication status.
+     * @return a ResponseEntity containing the authentication status and, if valid, the session token.
      */
-    @Operation(description = "This service allows you to log in using an ID and password.", parameters = {
+    @Operation(description = "This service allows you to log in using an ID and password. A valid login returns a session token to send as a Bearer token.", parameters = {
             @Parameter(name = "identifier", description = "Identifier: email or nickName", schema = @Schema()),
             @Parameter(name = "password", description = "Password", required = true, schema = @Schema()) }, responses = {
-            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"status\": \"validPassword\"}"))),
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"status\": \"validPassword\", \"token\": \"local.MToxOjE6MTcwMDAwMDAwMA.c2lnbmF0dXJl\", \"expiresAt\": \"2024-01-01T00:30:00Z\"}"))),
             @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
-            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()) })
+            @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content()),
+            @ApiResponse(responseCode = "503", description = "Service unavailable. Too many concurrent logins.", content = @Content()) })
     @CrossOrigin(origins = "*")
     @PostMapping("/login")
     public ResponseEntity<Map<String, String>> authenticate(@RequestParam("identifier") String identifier,
             @RequestParam("password") String password) {
         Map<String, String> response = new HashMap<>();
-        String result = userservice.login(identifier, password);
-        response.put("status", result);
+        Optional<UserSummary> user = userservice.login(identifier, password);
+        response.put("status", user.isPresent() ? "validPassword" : "invalidPassword");
+        if (user.isPresent()) {
+            SessionToken token = sessionTokenService.issue(user.get());
+            response.put("token", token.token());
+            response.put("expiresAt", token.expiresAt().toString());
+        }
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Returns the session of the caller.
+     * 
+     * The claims are read from the verified session token, so no database
+     * access is performed.
+     * 
+     * @param claims the claims of the session token, if any.
+     * @return the session claims, or 401 if no session token was sent.
+     */
+    @Operation(description = "This service returns the session of the caller, read from the Bearer token without accessing the database.", responses = {
+            @ApiResponse(responseCode = "200", description = "Session of the caller", content = @Content(mediaType = "application/json", schema = @Schema(implementation = SessionClaims.class))),
+            @ApiResponse(responseCode = "401", description = "Missing, invalid, expired or revoked session token", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @GetMapping("/me")
+    public ResponseEntity<SessionClaims> me(
+            @RequestAttribute(name = SessionTokenFilter.CLAIMS_ATTRIBUTE, required = false) SessionClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(claims);
+    }
+
+    /**
+     * Revokes the session token of the caller.
+     * 
+     * @param claims the claims of the session token, if any.
+     * @return 204 if the token was revoked, or 401 if no session token was sent.
+     */
+    @Operation(description = "This service revokes the Bearer token of the caller.", responses = {
+            @ApiResponse(responseCode = "204", description = "Session token revoked", content = @Content()),
+            @ApiResponse(responseCode = "401", description = "Missing, invalid, expired or revoked session token", content = @Content()),
+            @ApiResponse(responseCode = "503", description = "Service unavailable. Too many revoked sessions.", content = @Content()) })
+    @CrossOrigin(origins = "*")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestAttribute(name = SessionTokenFilter.CLAIMS_ATTRIBUTE, required = false) SessionClaims claims) {
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        sessionTokenService.revoke(claims);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Answers a concurrent update of the same user with 412 Precondition Failed.
+     * 
+     * @return an empty response with status 412.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleConcurrentUpdate() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    /**
+     * Extracts the version from an If-Match header.
+     * 
+     * @param ifMatch the If-Match header value, if any.
+     * @return the version, or null if no version is required.
+     * @throws ResponseStatusException with status 412 if the ETag is weak or not a user version.
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match uses the strong comparison, which a weak ETag never satisfies
+        if (tag.startsWith("W/")) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Weak ETags cannot be used in If-Match");
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown ETag in If-Match");
+        }
+    }
 }
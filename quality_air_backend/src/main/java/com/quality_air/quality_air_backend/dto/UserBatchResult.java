@@ -0,0 +1,33 @@
+package com.quality_air.quality_air_backend.dto;
+
+/**
+ * Outcome of one item of a batch user creation.
+ *
+ * @param index the position of the item in the submitted batch.
+ * @param id    the ID assigned to the created user, or null if it failed.
+ * @param error the reason the item failed, or null if it was created.
+ */
+public record UserBatchResult(int index, Integer id, String error) {
+
+    /**
+     * Creates the result of an item that was stored.
+     *
+     * @param index the position of the item in the batch.
+     * @param id    the ID assigned to the user.
+     * @return the result.
+     */
+    public static UserBatchResult created(int index, Integer id) {
+        return new UserBatchResult(index, id, null);
+    }
+
+    /**
+     * Creates the result of an item that could not be stored.
+     *
+     * @param index the position of the item in the batch.
+     * @param error the reason it failed.
+     * @return the result.
+     */
+    public static UserBatchResult failed(int index, String error) {
+        return new UserBatchResult(index, null, error);
+    }
+}
@@ -0,0 +1,38 @@
+package com.quality_air.quality_air_backend.dto;
+
+/**
+ * Change of a user, published once it is committed and pushed to the
+ * subscribers of the change feed.
+ *
+ * @param type   whether the user was created or updated.
+ * @param userId the ID of the changed user.
+ */
+public record UserChange(Type type, int userId) {
+
+    /**
+     * Kind of change.
+     */
+    public enum Type {
+        CREATED, UPDATED
+    }
+
+    /**
+     * Creates the change of a user that was stored for the first time.
+     *
+     * @param userId the ID assigned to the user.
+     * @return the change.
+     */
+    public static UserChange created(int userId) {
+        return new UserChange(Type.CREATED, userId);
+    }
+
+    /**
+     * Creates the change of an existing user that was modified.
+     *
+     * @param userId the ID of the user.
+     * @return the change.
+     */
+    public static UserChange updated(int userId) {
+        return new UserChange(Type.UPDATED, userId);
+    }
+}
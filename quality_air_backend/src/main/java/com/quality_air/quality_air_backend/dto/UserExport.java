@@ -0,0 +1,24 @@
+package com.quality_air.quality_air_backend.dto;
+
+import java.util.Date;
+
+/**
+ * View of a user written by the export endpoint.
+ * 
+ * It carries every column of the user except the password hash, and is
+ * fetched with a column-only query, so it is never tracked by the persistence
+ * context.
+ *
+ * @param id       unique identifier of the user.
+ * @param name     first name of the user.
+ * @param lastName last name of the user.
+ * @param dni      identity number of the user.
+ * @param date     date of birth of the user.
+ * @param email    email address of the user.
+ * @param nickName nickname of the user.
+ * @param status   status of the user (active or inactive).
+ * @param version  version of the user, used as its ETag.
+ */
+public record UserExport(Integer id, String name, String lastName, String dni, Date date, String email,
+        String nickName, boolean status, long version) {
+}
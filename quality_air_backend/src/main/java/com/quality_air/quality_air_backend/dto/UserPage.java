@@ -0,0 +1,13 @@
+package com.quality_air.quality_air_backend.dto;
+
+import java.util.List;
+
+/**
+ * A single page of active users returned by keyset pagination.
+ *
+ * @param items the users in this page, ordered by ID.
+ * @param next  the opaque cursor for the following page, or null on the last page.
+ * @param etag  the entity tag identifying the content of this page.
+ */
+public record UserPage(List<UserSummary> items, String next, String etag) {
+}
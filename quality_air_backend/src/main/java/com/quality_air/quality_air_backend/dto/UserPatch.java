@@ -0,0 +1,39 @@
+package com.quality_air.quality_air_backend.dto;
+
+import java.util.Date;
+
+/**
+ * Partial update of a user. Fields left null are not modified.
+ *
+ * @param name     new first name of the user.
+ * @param lastName new last name of the user.
+ * @param dni      new identity number of the user.
+ * @param date     new date of birth of the user.
+ * @param email    new email address of the user.
+ * @param nickName new nickname of the user.
+ * @param password new password of the user.
+ * @param status   new status of the user.
+ */
+public record UserPatch(String name, String lastName, String dni, Date date, String email, String nickName,
+        String password, Boolean status) {
+
+    /**
+     * Checks whether the patch modifies no field at all.
+     *
+     * @return true if every field is null.
+     */
+    public boolean isEmpty() {
+        return name == null && lastName == null && dni == null && date == null && email == null && nickName == null
+                && password == null && status == null;
+    }
+
+    /**
+     * Returns a copy of this patch with another password.
+     *
+     * @param password the password to set.
+     * @return the new patch.
+     */
+    public UserPatch withPassword(String password) {
+        return new UserPatch(name, lastName, dni, date, email, nickName, password, status);
+    }
+}
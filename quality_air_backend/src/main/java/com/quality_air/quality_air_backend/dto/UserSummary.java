@@ -0,0 +1,17 @@
+package com.quality_air.quality_air_backend.dto;
+
+/**
+ * Read-only view of a user returned by the list and detail endpoints.
+ * 
+ * It carries only the public columns of the user, so it can be fetched with a
+ * column-only query and is never tracked by the persistence context.
+ *
+ * @param id       unique identifier of the user.
+ * @param name     first name of the user.
+ * @param lastName last name of the user.
+ * @param nickName nickname of the user.
+ * @param status   status of the user (active or inactive).
+ * @param version  version of the user, used as its ETag.
+ */
+public record UserSummary(Integer id, String name, String lastName, String nickName, boolean status, long version) {
+}
@@ -0,0 +1,10 @@
+package com.quality_air.quality_air_backend.dto;
+
+/**
+ * ID and version of a user, used to compute ETags without loading the user.
+ *
+ * @param id      unique identifier of the user.
+ * @param version version of the user.
+ */
+public record UserVersion(Integer id, long version) {
+}
@@ -4,15 +4,24 @@ import java.io.Serializable;
 import java.util.Date;
 import java.text.SimpleDateFormat;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 /**
@@ -21,19 +30,33 @@ import lombok.Data;
  * This class maps to the "user" table in the database and holds the user's 
  * personal information including name, last name, identity number (DNI), 
  * date of birth, email, nickname, password, and status.
+ * 
+ * Users are kept in the Hibernate second-level cache when it is enabled.
  */
 @Schema
 @Entity
-@Table(name = "user")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@Table(name = "user", indexes = {
+        @Index(name = "idx_user_status_id_version", columnList = "status, id, version"),
+        @Index(name = "ux_user_email", columnList = "email", unique = true),
+        @Index(name = "ux_user_nick_name", columnList = "nick_name", unique = true) })
 @Data
 public class User implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Name of the second-level cache region holding users.
+     */
+    public static final String CACHE_REGION = "user";
+
     /**
      * Unique identifier for the user.
+     * Identifiers are allocated from a pooled sequence so inserts can be batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Integer id;
 
     /**
@@ -64,22 +87,23 @@ public class User implements Serializable {
 
     /**
      * Email address of the user.
-     * This field is required.
+     * This field is required and unique.
      */
     @Column(name = "email", nullable = false)
     private String email;
 
     /**
      * Nickname of the user.
-     * This field is required.
+     * This field is required and unique.
      */
     @Column(name = "nick_name", nullable = false)
     private String nickName;
 
     /**
-     * Password of the user.
-     * This field is required.
+     * Password of the user, stored as a bcrypt hash.
+     * This field is required. It is read from requests but never written to responses.
      */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(name = "password", nullable = false)
     private String password;
 
@@ -90,6 +114,14 @@ public class User implements Serializable {
     @Column(name = "status", nullable = false)
     private boolean status;
 
+    /**
+     * Version of the user, incremented on every update.
+     * It is used for optimistic locking and as the ETag of the user.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /**
      * Default constructor for User.
      */
@@ -290,4 +322,22 @@ public class User implements Serializable {
     public void setStatus(boolean status) {
         this.status = status;
     }
+
+    /**
+     * Gets the version of the user.
+     * 
+     * @return the user's version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the user.
+     * 
+     * @param version the version to set for the user
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -2,15 +2,24 @@ package com.quality_air.quality_air_backend.repo;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.quality_air.quality_air_backend.dto.UserExport;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.dto.UserVersion;
 import com.quality_air.quality_air_backend.entities.User;
 
 import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository interface for accessing User entities.
@@ -20,23 +29,87 @@ import io.swagger.v3.oas.annotations.Hidden;
  */
 @Hidden
 @Repository
-public interface UserRepo extends JpaRepository<User, Integer> {
+public interface UserRepo extends JpaRepository<User, Integer>, UserRepoCustom {
 
     /**
      * Retrieves a list of active users (status = true).
      * 
+     * Only the summary columns are fetched. The result is kept in the Hibernate
+     * query cache when it is enabled.
+     * 
      * @return a list of users with active status.
      */
-    @Query("select a from User a where a.status = true")
-    List<User> findByStatus();
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.quality_air.quality_air_backend.dto.UserSummary(a.id, a.name, a.lastName, a.nickName, a.status, a.version) "
+            + "from User a where a.status = true")
+    List<UserSummary> findByStatus();
+
+    /**
+     * Retrieves the next page of active users after the given cursor.
+     * 
+     * The query seeks on the (status, id, version) index, so its cost does not grow
+     * with how deep the client has paged. Only the summary columns are fetched.
+     * 
+     * @param cursor the last user ID already returned to the client.
+     * @param limit  the maximum number of users to return.
+     * @return active users with an ID greater than the cursor, ordered by ID.
+     */
+    @Query("select new com.quality_air.quality_air_backend.dto.UserSummary(a.id, a.name, a.lastName, a.nickName, a.status, a.version) "
+            + "from User a where a.status = true and a.id > :cursor order by a.id")
+    List<UserSummary> findActiveAfter(@Param("cursor") int cursor, Limit limit);
+
+    /**
+     * Retrieves the ID and version of the next page of active users after the given cursor.
+     * 
+     * The query is answered from the (status, id, version) index alone, so it is a
+     * cheap way to compute the ETag of a page before fetching it.
+     * 
+     * @param cursor the last user ID already returned to the client.
+     * @param limit  the maximum number of users to return.
+     * @return IDs and versions of active users with an ID greater than the cursor, ordered by ID.
+     */
+    @Query("select new com.quality_air.quality_air_backend.dto.UserVersion(a.id, a.version) "
+            + "from User a where a.status = true and a.id > :cursor order by a.id")
+    List<UserVersion> findActiveVersionsAfter(@Param("cursor") int cursor, Limit limit);
+
+    /**
+     * Retrieves the summary of a user by their ID.
+     * 
+     * @param id the ID of the user.
+     * @return an Optional containing the user summary if found, otherwise empty.
+     */
+    @Query("select new com.quality_air.quality_air_backend.dto.UserSummary(a.id, a.name, a.lastName, a.nickName, a.status, a.version) "
+            + "from User a where a.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") int id);
+
+    /**
+     * Streams every user ordered by ID, without their password.
+     * 
+     * Rows are fetched from the database in blocks through a server-side cursor
+     * as column-only projections, so the caller can process the whole table
+     * without holding it in memory. The stream must be consumed inside a
+     * transaction and closed afterwards.
+     * 
+     * @return a stream of all users.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.quality_air.quality_air_backend.dto.UserExport(a.id, a.name, a.lastName, a.dni, a.date, "
+            + "a.email, a.nickName, a.status, a.version) from User a order by a.id")
+    Stream<UserExport> streamAll();
+
+    /**
+     * Finds a user by email using the unique email index.
+     * 
+     * @param email the email of the user.
+     * @return an Optional containing the user if found, otherwise empty.
+     */
+    Optional<User> findByEmail(String email);
 
     /**
-     * Finds a user by email or nickname and password.
+     * Finds a user by nickname using the unique nickname index.
      * 
-     * @param identifier the email or nickname of the user.
-     * @param password   the password of the user.
+     * @param nickName the nickname of the user.
      * @return an Optional containing the user if found, otherwise empty.
      */
-    @Query("SELECT u FROM User u WHERE (u.email = :identifier OR u.nickName = :identifier) AND u.password = :password")
-    Optional<User> findByIdentifierAndPassword(@Param("identifier") String identifier, @Param("password") String password);
+    Optional<User> findByNickName(String nickName);
 }
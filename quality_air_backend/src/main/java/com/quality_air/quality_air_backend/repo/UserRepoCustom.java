@@ -0,0 +1,21 @@
+package com.quality_air.quality_air_backend.repo;
+
+import com.quality_air.quality_air_backend.dto.UserPatch;
+
+/**
+ * Custom repository operations for User entities that cannot be expressed
+ * as query methods.
+ */
+public interface UserRepoCustom {
+
+    /**
+     * Updates only the fields supplied in the patch with a single UPDATE statement.
+     * 
+     * The row is not read beforehand. The version of the user is incremented.
+     * 
+     * @param id    the ID of the user to update.
+     * @param patch the fields to update.
+     * @return the number of rows updated.
+     */
+    int patch(int id, UserPatch patch);
+}
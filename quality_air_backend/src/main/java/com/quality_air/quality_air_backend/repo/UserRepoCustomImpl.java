@@ -0,0 +1,56 @@
+package com.quality_air.quality_air_backend.repo;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.quality_air.quality_air_backend.dto.UserPatch;
+import com.quality_air.quality_air_backend.entities.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Implementation of the custom User repository operations.
+ */
+public class UserRepoCustomImpl implements UserRepoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int patch(int id, UserPatch patch) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        if (patch.name() != null) {
+            update.set(user.get("name"), patch.name());
+        }
+        if (patch.lastName() != null) {
+            update.set(user.get("lastName"), patch.lastName());
+        }
+        if (patch.dni() != null) {
+            update.set(user.get("dni"), patch.dni());
+        }
+        if (patch.date() != null) {
+            update.set(user.get("date"), patch.date());
+        }
+        if (patch.email() != null) {
+            update.set(user.get("email"), patch.email());
+        }
+        if (patch.nickName() != null) {
+            update.set(user.get("nickName"), patch.nickName());
+        }
+        if (patch.password() != null) {
+            update.set(user.get("password"), patch.password());
+        }
+        if (patch.status() != null) {
+            update.set(user.get("status"), patch.status());
+        }
+        update.set(user.<Long>get("version"), builder.sum(user.<Long>get("version"), 1L));
+        update.where(builder.equal(user.get("id"), id));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,146 @@
+package com.quality_air.quality_air_backend.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Service class throttling login attempts per identifier and per client IP.
+ * 
+ * Each key has a lock-free token bucket implemented with the generic cell rate
+ * algorithm: the bucket is a single theoretical arrival time updated with a
+ * compare-and-set, so concurrent attempts never block each other. Buckets
+ * that have fully refilled carry no state and are evicted periodically. Each
+ * table is capped at a maximum number of entries: when it is full, the least
+ * recently and frequently used buckets are evicted, so a flood of new keys
+ * cannot stop other clients from logging in.
+ */
+@Hidden
+@Service
+public class LoginThrottle implements MeterBinder {
+
+    @Value("${login.throttle.identifier.limit}")
+    private int identifierLimit;
+
+    @Value("${login.throttle.identifier.period}")
+    private Duration identifierPeriod;
+
+    @Value("${login.throttle.ip.limit}")
+    private int ipLimit;
+
+    @Value("${login.throttle.ip.period}")
+    private Duration ipPeriod;
+
+    @Value("${login.throttle.max-entries}")
+    private int maxEntries;
+
+    private Buckets identifiers;
+
+    private Buckets ips;
+
+    /**
+     * Creates the bucket tables from the configured limits.
+     */
+    @PostConstruct
+    public void init() {
+        identifiers = new Buckets(identifierLimit, identifierPeriod);
+        ips = new Buckets(ipLimit, ipPeriod);
+    }
+
+    /**
+     * Takes one login attempt from the buckets of a client IP and an identifier.
+     * 
+     * The identifier bucket is only charged when the IP bucket allows the attempt.
+     * 
+     * @param identifier the email or nickname sent by the client, if any.
+     * @param ip         the address of the client.
+     * @return 0 if the attempt is allowed, otherwise the time to wait before retrying, in nanoseconds.
+     */
+    public long tryAcquire(String identifier, String ip) {
+        long now = System.nanoTime();
+        long wait = ips.tryAcquire(ip, now);
+        if (wait == 0 && identifier != null) {
+            wait = identifiers.tryAcquire(identifier.trim().toLowerCase(Locale.ROOT), now);
+        }
+        return wait;
+    }
+
+    /**
+     * Removes the buckets that have fully refilled.
+     */
+    @Scheduled(fixedDelay = 30_000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        identifiers.evictIdle(now);
+        ips.evictIdle(now);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        identifiers.bindTo(registry, "identifier");
+        ips.bindTo(registry, "ip");
+    }
+
+    /**
+     * Table of token buckets sharing one limit.
+     */
+    private final class Buckets {
+
+        private final Cache<String, AtomicLong> table;
+
+        private final LongAdder rejections = new LongAdder();
+
+        private final long interval;
+
+        private final long burst;
+
+        Buckets(int limit, Duration period) {
+            interval = period.toNanos() / limit;
+            burst = interval * limit;
+            // Evictions run on the calling thread, so the table never outgrows its cap for long
+            table = Caffeine.newBuilder().maximumSize(maxEntries).executor(Runnable::run).build();
+        }
+
+        long tryAcquire(String key, long now) {
+            AtomicLong bucket = table.get(key, k -> new AtomicLong(now));
+            while (true) {
+                long arrival = bucket.get();
+                long next = Math.max(arrival, now) + interval;
+                if (next - now > burst) {
+                    rejections.increment();
+                    return next - now - burst;
+                }
+                if (bucket.compareAndSet(arrival, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void evictIdle(long now) {
+            table.asMap().values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+
+        void bindTo(MeterRegistry registry, String key) {
+            Gauge.builder("login.throttle.buckets", table, Cache::estimatedSize)
+                    .description("Number of login throttling buckets in memory").tag("key", key)
+                    .register(registry);
+            FunctionCounter.builder("login.throttle.rejections", rejections, LongAdder::sum)
+                    .description("Number of login attempts rejected by throttling").tag("key", key)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.quality_air.quality_air_backend.security;
+
+import java.time.Instant;
+
+/**
+ * Claims carried by a signed session token.
+ *
+ * @param tokenId   unique identifier of the token, used for revocation.
+ * @param userId    ID of the authenticated user.
+ * @param status    status of the user when the token was issued.
+ * @param expiresAt instant after which the token is no longer valid.
+ */
+public record SessionClaims(String tokenId, int userId, boolean status, Instant expiresAt) {
+}
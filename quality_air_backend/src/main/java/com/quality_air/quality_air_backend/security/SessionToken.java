@@ -0,0 +1,12 @@
+package com.quality_air.quality_air_backend.security;
+
+import java.time.Instant;
+
+/**
+ * A signed session token issued on login.
+ *
+ * @param token     the compact token to send in the Authorization header.
+ * @param expiresAt instant after which the token is no longer valid.
+ */
+public record SessionToken(String token, Instant expiresAt) {
+}
@@ -0,0 +1,55 @@
+package com.quality_air.quality_air_backend.security;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter verifying the session token sent in the Authorization header.
+ * 
+ * Requests carrying a valid Bearer token get its claims as the
+ * {@link #CLAIMS_ATTRIBUTE} request attribute; requests carrying an invalid,
+ * expired or revoked token are rejected with 401. Requests without a token
+ * are passed through unchanged.
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the {@link SessionClaims} of the caller.
+     */
+    public static final String CLAIMS_ATTRIBUTE = "com.quality_air.quality_air_backend.security.SessionClaims";
+
+    private static final String BEARER = "Bearer ";
+
+    private final SessionTokenService sessionTokenService;
+
+    public SessionTokenFilter(SessionTokenService sessionTokenService) {
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<SessionClaims> claims = sessionTokenService.verify(authorization.substring(BEARER.length()).trim());
+        if (claims.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Invalid session token");
+            return;
+        }
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims.get());
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,189 @@
+package com.quality_air.quality_air_backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.quality_air.quality_air_backend.dto.UserSummary;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Service class issuing and verifying signed session tokens.
+ * 
+ * A token has the form {@code keyId.payload.signature}, where the payload holds
+ * the token ID, user ID, user status and expiry, and the signature is an
+ * HMAC-SHA256 of the key ID and payload. Tokens are verified locally without
+ * any database access. Several keys can be configured for rotation: the first
+ * one signs new tokens and all of them verify. Revoked tokens are kept in a
+ * bounded in-memory set until they expire.
+ */
+@Hidden
+@Service
+public class SessionTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${session.token.keys}")
+    private List<String> configuredKeys;
+
+    @Value("${session.token.ttl}")
+    private Duration ttl;
+
+    @Value("${session.token.revocation.max-size}")
+    private int maxRevoked;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private String signingKeyId;
+
+    /**
+     * Loads the signing keys, generating a random one when none is configured.
+     */
+    @PostConstruct
+    public void init() {
+        for (String entry : configuredKeys) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator < 1) {
+                throw new IllegalStateException("session.token.keys entries must have the form id:base64-secret");
+            }
+            keys.put(entry.substring(0, separator).trim(),
+                    new SecretKeySpec(Base64.getDecoder().decode(entry.substring(separator + 1).trim()), ALGORITHM));
+        }
+        if (keys.isEmpty()) {
+            log.warn("No session.token.keys configured, using a random key: tokens will not survive a restart "
+                    + "nor be accepted by other instances");
+            byte[] secret = new byte[32];
+            random.nextBytes(secret);
+            keys.put("local", new SecretKeySpec(secret, ALGORITHM));
+        }
+        signingKeyId = keys.keySet().iterator().next();
+    }
+
+    /**
+     * Issues a token for an authenticated user.
+     * 
+     * @param user the authenticated user.
+     * @return the signed token and its expiry.
+     */
+    public SessionToken issue(UserSummary user) {
+        byte[] id = new byte[12];
+        random.nextBytes(id);
+        Instant expiresAt = Instant.now().plus(ttl).truncatedTo(ChronoUnit.SECONDS);
+        String payload = ENCODER.encodeToString((ENCODER.encodeToString(id) + ":" + user.id() + ":"
+                + (user.status() ? 1 : 0) + ":" + expiresAt.getEpochSecond()).getBytes(StandardCharsets.US_ASCII));
+        String signed = signingKeyId + "." + payload;
+        return new SessionToken(signed + "." + ENCODER.encodeToString(sign(keys.get(signingKeyId), signed)), expiresAt);
+    }
+
+    /**
+     * Verifies a token.
+     * 
+     * @param token the compact token.
+     * @return the claims of the token, or empty if it is malformed, forged, expired or revoked.
+     */
+    public Optional<SessionClaims> verify(String token) {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first < 1 || last <= first) {
+            return Optional.empty();
+        }
+        SecretKeySpec key = keys.get(token.substring(0, first));
+        if (key == null) {
+            return Optional.empty();
+        }
+        try {
+            byte[] signature = DECODER.decode(token.substring(last + 1));
+            if (!MessageDigest.isEqual(signature, sign(key, token.substring(0, last)))) {
+                return Optional.empty();
+            }
+            String[] fields = new String(DECODER.decode(token.substring(first + 1, last)), StandardCharsets.US_ASCII)
+                    .split(":");
+            SessionClaims claims = new SessionClaims(fields[0], Integer.parseInt(fields[1]), "1".equals(fields[2]),
+                    Instant.ofEpochSecond(Long.parseLong(fields[3])));
+            if (claims.expiresAt().isBefore(Instant.now()) || revoked.containsKey(claims.tokenId())) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Revokes a token until it expires.
+     * 
+     * @param claims the claims of the token to revoke.
+     * @throws ResponseStatusException with status 503 if the revocation set is full.
+     */
+    public void revoke(SessionClaims claims) {
+        if (revoked.size() >= maxRevoked) {
+            purgeExpired();
+            if (revoked.size() >= maxRevoked) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many revoked sessions");
+            }
+        }
+        revoked.put(claims.tokenId(), claims.expiresAt());
+    }
+
+    /**
+     * Removes revoked tokens that have expired anyway.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+    }
+
+    /**
+     * Computes the HMAC of a value.
+     * 
+     * @param key   the key to sign with.
+     * @param value the value to sign.
+     * @return the signature.
+     */
+    private static byte[] sign(SecretKeySpec key, String value) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(value.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign session token", e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.quality_air.quality_air_backend.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service class for hashing and verifying user passwords.
+ * 
+ * Passwords are hashed with bcrypt. Verification and batch hashing are CPU
+ * intensive, so they run on a dedicated pool with a bounded queue: when the
+ * queue is full, requests are rejected with 503 instead of piling up on the
+ * request threads.
+ */
+@Hidden
+@Service
+public class PasswordService {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    @Value("${user.password.cost}")
+    private int cost;
+
+    @Value("${user.password.verify-threads}")
+    private int verifyThreads;
+
+    @Value("${user.password.verify-queue}")
+    private int verifyQueue;
+
+    @Value("${user.password.verify-timeout-ms}")
+    private long verifyTimeoutMillis;
+
+    private BCryptPasswordEncoder encoder;
+
+    private ThreadPoolExecutor verifier;
+
+    /**
+     * Hash of a random password, verified when there is no user to verify against.
+     */
+    private String dummyHash;
+
+    /**
+     * Creates the password encoder and the verification pool.
+     */
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(cost);
+        int threads = verifyThreads > 0 ? verifyThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        verifier = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(verifyQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        dummyHash = encoder.encode(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Stops the verification pool.
+     */
+    @PreDestroy
+    public void shutdown() {
+        verifier.shutdownNow();
+    }
+
+    /**
+     * Hashes a raw password.
+     * 
+     * Passwords sent by clients are always hashed, even when they look like a
+     * bcrypt hash, so a client cannot choose the stored hash.
+     * 
+     * @param raw the raw password.
+     * @return the bcrypt hash of the password.
+     */
+    public String hash(String raw) {
+        return encoder.encode(raw);
+    }
+
+    /**
+     * Hashes several raw passwords on the dedicated pool.
+     * 
+     * The passwords are hashed in parallel, and the whole batch must complete
+     * within the verification timeout.
+     * 
+     * @param raws the raw passwords.
+     * @return the bcrypt hashes of the passwords, in the same order.
+     * @throws ResponseStatusException with status 503 if the pool is saturated or the hashing times out.
+     */
+    public List<String> hashAll(List<String> raws) {
+        List<Future<String>> results = new ArrayList<>(raws.size());
+        try {
+            for (String raw : raws) {
+                results.add(submit(() -> encoder.encode(raw)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(verifyTimeoutMillis);
+            List<String> hashes = new ArrayList<>(raws.size());
+            for (Future<String> result : results) {
+                hashes.add(await(result, deadline));
+            }
+            return hashes;
+        } finally {
+            // Free the pool from the rest of a failed batch
+            results.forEach(result -> result.cancel(true));
+        }
+    }
+
+    /**
+     * Checks whether a stored password is a bcrypt hash.
+     * 
+     * @param stored the stored password.
+     * @return true if the password is hashed, false if it is legacy plain text.
+     */
+    public boolean isHashed(String stored) {
+        return BCRYPT_PATTERN.matcher(stored).matches();
+    }
+
+    /**
+     * Checks whether a stored password should be hashed again with the current cost factor.
+     * 
+     * @param stored the stored password.
+     * @return true if the password is plain text or hashed with a lower cost.
+     */
+    public boolean needsRehash(String stored) {
+        return !isHashed(stored) || encoder.upgradeEncoding(stored);
+    }
+
+    /**
+     * Verifies a raw password against the stored one.
+     * 
+     * Hashed passwords are verified on the dedicated pool. Legacy plain text
+     * passwords are compared in constant time on the calling thread.
+     * 
+     * @param raw    the password supplied by the client.
+     * @param stored the password stored for the user.
+     * @return true if the password matches.
+     * @throws ResponseStatusException with status 503 if the verification pool is saturated.
+     */
+    public boolean matches(String raw, String stored) {
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(raw.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        Future<Boolean> result = submit(() -> encoder.matches(raw, stored));
+        try {
+            return await(result, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(verifyTimeoutMillis));
+        } finally {
+            result.cancel(true);
+        }
+    }
+
+    /**
+     * Verifies a raw password against a hash no password matches.
+     * 
+     * Used when there is no user to verify against, so that a login with an
+     * unknown identifier takes as long as one with a wrong password and does
+     * not reveal which identifiers exist.
+     * 
+     * @param raw the password supplied by the client.
+     * @throws ResponseStatusException with status 503 if the verification pool is saturated.
+     */
+    public void matchesNone(String raw) {
+        matches(raw, dummyHash);
+    }
+
+    /**
+     * Submits a task to the dedicated pool.
+     * 
+     * @param task the hashing or verification to run.
+     * @return the result of the task.
+     * @throws ResponseStatusException with status 503 if the pool is saturated.
+     */
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return verifier.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent password operations");
+        }
+    }
+
+    /**
+     * Waits for a task of the dedicated pool.
+     * 
+     * @param result   the result of the task.
+     * @param deadline the {@link System#nanoTime()} after which to stop waiting.
+     * @return the value computed by the task.
+     * @throws ResponseStatusException with status 503 if the deadline passes.
+     */
+    private static <T> T await(Future<T> result, long deadline) {
+        try {
+            return result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Password verification timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Password verification interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+}
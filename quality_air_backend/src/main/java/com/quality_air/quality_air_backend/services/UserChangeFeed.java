@@ -0,0 +1,375 @@
+package com.quality_air.quality_air_backend.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.quality_air.quality_air_backend.dto.UserChange;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service class pushing user changes to clients as server-sent events.
+ *
+ * Changes are received once committed and numbered in order. The most recent
+ * ones are kept in a ring buffer, so a reconnecting client sending the ID of
+ * the last event it received gets the changes it missed. When those are no
+ * longer buffered, or the ID comes from an earlier run of the application, a
+ * "reset" event tells the client to reload the users instead.
+ *
+ * Each subscriber has a bounded queue of unsent events, written to the
+ * connection by its own sender task. Publishing never waits for a client: a
+ * subscriber whose queue is full, or whose sender task cannot be scheduled, is
+ * disconnected, and may resume from the buffer when it reconnects. The number
+ * of subscribers is capped, and so is the sender pool, which needs at most one
+ * thread per subscriber.
+ */
+@Hidden
+@Service
+public class UserChangeFeed {
+
+    /**
+     * Name of the event sent when the missed changes cannot be replayed.
+     */
+    public static final String RESET_EVENT = "reset";
+
+    @Value("${user.changes.buffer-size}")
+    private int bufferSize;
+
+    @Value("${user.changes.subscriber-queue}")
+    private int subscriberQueue;
+
+    @Value("${user.changes.timeout}")
+    private Duration timeout;
+
+    @Value("${user.changes.max-subscribers}")
+    private int maxSubscribers;
+
+    /**
+     * Prefix of the event IDs, distinguishing them from the IDs of earlier runs.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final ArrayDeque<Entry> recent = new ArrayDeque<>();
+
+    private long lastSequence;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor sender;
+
+    /**
+     * Change together with its position in the feed.
+     *
+     * @param sequence the position of the change.
+     * @param change   the change.
+     */
+    private record Entry(long sequence, UserChange change) {
+    }
+
+    /**
+     * Creates the pool running the sender tasks, with one thread per possible
+     * subscriber. Idle threads are stopped.
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        sender = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers), runnable -> {
+                    Thread thread = new Thread(runnable, "user-changes-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Disconnects the subscribers and stops the sender pool.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(this::drop);
+        sender.shutdown();
+    }
+
+    /**
+     * Subscribes a client to the changes.
+     *
+     * @param lastEventId the ID of the last event the client received, or null
+     *                    to receive only new changes.
+     * @return the emitter of the events.
+     * @throws ResponseStatusException with status 503 if the maximum number of subscribers is reached.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+        emitter.onTimeout(emitter::complete);
+
+        synchronized (this) {
+            if (lastEventId != null) {
+                long after = sequenceOf(lastEventId);
+                if (after < 0 || after > lastSequence || after < lastSequence - recent.size()) {
+                    subscriber.replay(SseEmitter.event().name(RESET_EVENT).id(eventId(lastSequence))
+                            .data(RESET_EVENT));
+                } else {
+                    for (Entry entry : recent) {
+                        if (entry.sequence() > after) {
+                            subscriber.replay(event(entry));
+                        }
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Records a committed change and queues it for every subscriber.
+     *
+     * Changes made outside a transaction are recorded immediately.
+     *
+     * @param change the change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void publish(UserChange change) {
+        Entry entry = new Entry(++lastSequence, change);
+        recent.addLast(entry);
+        if (recent.size() > bufferSize) {
+            recent.removeFirst();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(event(entry))) {
+                drop(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Sends a comment to idle subscribers, so closed connections are detected
+     * and proxies do not time out the stream.
+     */
+    @Scheduled(fixedDelayString = "${user.changes.heartbeat-interval}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    /**
+     * Counts the connected subscribers.
+     *
+     * @return the number of subscribers.
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Disconnects a subscriber, completing its response once any event being
+     * written is sent.
+     *
+     * @param subscriber the subscriber.
+     */
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.drop();
+    }
+
+    /**
+     * Forgets a subscriber whose response is already complete.
+     *
+     * @param subscriber the subscriber.
+     */
+    private void close(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.close();
+    }
+
+    private SseEmitter.SseEventBuilder event(Entry entry) {
+        return SseEmitter.event().id(eventId(entry.sequence())).data(entry.change());
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Reads the position of an event ID.
+     *
+     * @param eventId the event ID sent by the client.
+     * @return the position, or -1 if the ID is invalid or from an earlier run.
+     */
+    private long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Connected client, with the events not yet written to its connection.
+     *
+     * At most one sender task runs per subscriber, so its events are written
+     * in order and a slow connection only holds its own task.
+     */
+    private final class Subscriber {
+
+        private static final SseEmitter.SseEventBuilder COMPLETE = SseEmitter.event();
+
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean sending;
+        private boolean dropped;
+        private boolean completed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues a missed event, regardless of the queue limit.
+         */
+        synchronized void replay(SseEmitter.SseEventBuilder event) {
+            pending.addLast(event);
+        }
+
+        /**
+         * Queues a new event.
+         *
+         * @return false if the queue is full.
+         */
+        boolean offer(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (dropped) {
+                    return true;
+                }
+                if (pending.size() >= subscriberQueue) {
+                    return false;
+                }
+                pending.addLast(event);
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * Queues a comment if there is nothing to send.
+         */
+        void heartbeat() {
+            synchronized (this) {
+                if (dropped || sending || !pending.isEmpty()) {
+                    return;
+                }
+                pending.addLast(SseEmitter.event().comment("heartbeat"));
+            }
+            schedule();
+        }
+
+        /**
+         * Stops queueing events and completes the response.
+         */
+        void drop() {
+            synchronized (this) {
+                if (dropped) {
+                    return;
+                }
+                dropped = true;
+                pending.clear();
+            }
+            schedule();
+        }
+
+        /**
+         * Stops queueing events of a response that is already complete.
+         */
+        synchronized void close() {
+            dropped = true;
+            completed = true;
+            pending.clear();
+        }
+
+        /**
+         * Starts the sender task unless it is running or there is nothing to do.
+         * 
+         * When the pool cannot take the task, the subscriber is disconnected.
+         */
+        void schedule() {
+            synchronized (this) {
+                if (sending || completed || (pending.isEmpty() && !dropped)) {
+                    return;
+                }
+                sending = true;
+            }
+            try {
+                sender.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                UserChangeFeed.this.close(this);
+                emitter.complete();
+            }
+        }
+
+        /**
+         * Takes the next event to write, ending the sender task when there is none.
+         *
+         * @return the event, COMPLETE if the response must be completed, or null.
+         */
+        private synchronized SseEmitter.SseEventBuilder next() {
+            if (dropped) {
+                sending = false;
+                if (completed) {
+                    return null;
+                }
+                completed = true;
+                return COMPLETE;
+            }
+            SseEmitter.SseEventBuilder event = pending.pollFirst();
+            if (event == null) {
+                sending = false;
+            }
+            return event;
+        }
+
+        private void send() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = next()) != null) {
+                    if (event == COMPLETE) {
+                        emitter.complete();
+                        return;
+                    }
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client disconnected; the container completes the response
+                UserChangeFeed.this.close(this);
+            }
+        }
+    }
+}
@@ -1,19 +1,59 @@
 package com.quality_air.quality_air_backend.services;
 
-import java.util.Date;
-import java.text.SimpleDateFormat;
+import java.util.Base64;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.quality_air.quality_air_backend.dto.UserBatchResult;
+import com.quality_air.quality_air_backend.dto.UserChange;
+import com.quality_air.quality_air_backend.dto.UserExport;
+import com.quality_air.quality_air_backend.dto.UserPage;
+import com.quality_air.quality_air_backend.dto.UserPatch;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.dto.UserVersion;
 import com.quality_air.quality_air_backend.entities.User;
 import com.quality_air.quality_air_backend.repo.UserRepo;
+import com.quality_air.quality_air_backend.utilities.ReplicaRoutingDataSource;
+import com.quality_air.quality_air_backend.utilities.SingleFlight;
 
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 /**
  * Service class for managing User entities.
@@ -23,86 +63,549 @@ import jakarta.annotation.PostConstruct;
  */
 @Hidden
 @Service
+@Timed(value = "user.service", description = "Latency of UserService methods")
 public class UserService {
 
+    /**
+     * Name of the cache holding user summaries by ID.
+     */
+    public static final String USER_CACHE = "users";
+
+    private static final long PAGE_TAG_SEED = 0xcbf29ce484222325L;
+
     @Autowired
     private UserRepo userrepo;
 
+    @Autowired
+    private PasswordService passwordService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    @Value("${user.batch.max-size}")
+    private int maxBatchSize;
+
+    @Value("${user.export.chunk-size}")
+    private int exportChunkSize;
+
+    @Value("${user.page.default-size}")
+    private int defaultPageSize;
+
+    @Value("${user.page.max-size}")
+    private int maxPageSize;
+
+    @Value("${user.coalesce.timeout}")
+    private Duration coalesceTimeout;
+
+    private SingleFlight<Integer, Optional<UserSummary>> userLoads;
+
+    private SingleFlight<PageKey, UserPage> pageLoads;
+
+    private SingleFlight<Boolean, List<UserSummary>> activeLoads;
+
+    private TransactionTemplate readOnlyTransaction;
+
     /**
-     * Initializes default data by inserting an admin user into the database.
+     * Position and size of a page of active users, used to coalesce page loads.
+     *
+     * @param after the last user ID already returned to the client.
+     * @param size  the page size.
+     */
+    private record PageKey(int after, int size) {
+    }
+
+    /**
+     * Creates the groups coalescing concurrent reads.
+     * 
+     * Coalesced loads open their read-only transaction inside the loader, so
+     * only the caller running the query holds a connection while the others
+     * wait for its result.
      */
     @PostConstruct
-    public void insertarDatos() {
+    public void initCoalescing() {
+        userLoads = new SingleFlight<>(coalesceTimeout);
+        pageLoads = new SingleFlight<>(coalesceTimeout);
+        activeLoads = new SingleFlight<>(coalesceTimeout);
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Initializes default data by inserting an admin user into the database.
+     * 
+     * It runs once the application accepts traffic, so it does not delay
+     * startup. The admin user is only inserted if it does not exist yet; an
+     * existing one, possibly with a changed password, is left unchanged. When
+     * several instances start at once, the unique nickname lets only one of
+     * them insert it.
+     * 
+     * @param event the change of the readiness state.
+     */
+    @EventListener
+    public void insertarDatos(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || userrepo.findByNickName("admin").isPresent()) {
+            return;
+        }
         User adminUser = new User();
 
         adminUser.setName("Admin");
         adminUser.setLastName("Admin");
         adminUser.setDni("12345678");
         adminUser.setEmail("admin@correo.com");
-        try {
-            // Usa java.util.Date
-            SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
-            Date parsedDate = formatter.parse("28/10/2012");
-            // Convierte a java.sql.Date si es necesario
-            adminUser.setDate(new java.sql.Date(parsedDate.getTime())); 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        adminUser.setDate(java.sql.Date.valueOf("2012-10-28"));
         adminUser.setNickName("admin");
-        adminUser.setPassword("admin");
+        adminUser.setPassword(passwordService.hash("admin"));
         adminUser.setStatus(true);
 
-        userrepo.save(adminUser);
+        try {
+            userrepo.save(adminUser);
+        } catch (DataIntegrityViolationException e) {
+            // Inserted meanwhile by another instance
+        }
+    }
+
+    /**
+     * Invalidates the reads started before a committed change.
+     * 
+     * It runs on the writing thread once the change is committed, so a caller
+     * reading its own change right after never joins a coalesced load that
+     * started before the write, nor reads the user cached before the commit.
+     * 
+     * @param change the committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void invalidateReads(UserChange change) {
+        userLoads.invalidate();
+        pageLoads.invalidate();
+        activeLoads.invalidate();
+        cacheManager.getCache(USER_CACHE).evict(change.userId());
     }
 
     /**
      * Inserts a new user into the database.
      * 
+     * The password is stored as a bcrypt hash and the creation is published
+     * to the change feed.
+     * 
      * @param enter the User entity to be inserted.
      * @return the saved User entity.
      */
     public User insert(User enter) {
-        return userrepo.save(enter);
+        enter.setPassword(passwordService.hash(enter.getPassword()));
+        User saved = userrepo.save(enter);
+        eventPublisher.publishEvent(UserChange.created(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Inserts a batch of new users using JDBC batch inserts.
+     * 
+     * Passwords are hashed before saving, in parallel on the bounded pool of
+     * the password service. Users are written in chunks of the
+     * JDBC batch size, each in its own transaction. When a chunk fails, its
+     * users are retried one by one so a single bad item does not abort the
+     * rest of the batch. The creation of each stored user is published to the
+     * change feed.
+     * 
+     * @param users the User entities to be inserted.
+     * @return one result per submitted user, in the same order.
+     */
+    public List<UserBatchResult> insertBatch(List<User> users) {
+        if (users.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch can contain at most " + maxBatchSize + " users");
+        }
+        UserBatchResult[] results = new UserBatchResult[users.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            String error = validate(users.get(i));
+            if (error != null) {
+                results[i] = UserBatchResult.failed(i, error);
+            } else {
+                users.get(i).setId(null);
+                pending.add(i);
+            }
+        }
+        List<String> hashes = passwordService.hashAll(pending.stream().map(i -> users.get(i).getPassword()).toList());
+        for (int k = 0; k < pending.size(); k++) {
+            users.get(pending.get(k)).setPassword(hashes.get(k));
+        }
+
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                saveChunk(users, chunk);
+                chunk.forEach(i -> results[i] = created(i, users.get(i).getId()));
+            } catch (DataAccessException e) {
+                // Isolate the failing items of the chunk
+                for (int i : chunk) {
+                    users.get(i).setId(null);
+                    try {
+                        saveChunk(users, List.of(i));
+                        results[i] = created(i, users.get(i).getId());
+                    } catch (DataAccessException itemError) {
+                        results[i] = UserBatchResult.failed(i, itemError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Publishes the creation of a user of a batch.
+     * 
+     * @param index the position of the user in the batch.
+     * @param id    the ID assigned to the user.
+     * @return the result of the item.
+     */
+    private UserBatchResult created(int index, Integer id) {
+        eventPublisher.publishEvent(UserChange.created(id));
+        return UserBatchResult.created(index, id);
+    }
+
+    /**
+     * Saves the given users in a single transaction and flushes them as one JDBC batch.
+     * 
+     * @param users   the submitted users.
+     * @param indexes the positions of the users to save.
+     */
+    private void saveChunk(List<User> users, List<Integer> indexes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            userrepo.saveAllAndFlush(indexes.stream().map(users::get).toList());
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Checks that a user has every required field.
+     * 
+     * @param user the user to check.
+     * @return the validation error, or null if the user is valid.
+     */
+    private static String validate(User user) {
+        if (user == null) {
+            return "User is empty";
+        }
+        if (user.getDni() == null) {
+            return "Missing required field: dni";
+        }
+        if (user.getDate() == null) {
+            return "Missing required field: date";
+        }
+        if (user.getEmail() == null) {
+            return "Missing required field: email";
+        }
+        if (user.getNickName() == null) {
+            return "Missing required field: nickName";
+        }
+        if (user.getPassword() == null) {
+            return "Missing required field: password";
+        }
+        return null;
     }
 
     /**
      * Updates an existing user in the database.
      * 
-     * @param enter the User entity to be updated.
+     * When an expected version is given, the update only succeeds if the user
+     * still has that version. Otherwise the current version is used, so the
+     * last writer wins. Concurrent updates are detected by the version column.
+     * The password is stored as a bcrypt hash and the cached user is evicted.
+     * The change is published to the change feed once committed.
+     * 
+     * @param enter           the User entity to be updated.
+     * @param expectedVersion the version the client last read, or null to skip the check.
      * @return the updated User entity.
+     * @throws ResponseStatusException with status 404 if the user does not exist, or
+     *                                 412 if it no longer has the expected version.
      */
-    public User update(User enter) {
-        return userrepo.save(enter);
+    @Transactional
+    @CacheEvict(cacheNames = USER_CACHE, key = "#enter.id")
+    public User update(User enter, Long expectedVersion) {
+        User current = userrepo.findById(enter.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        if (expectedVersion != null && expectedVersion != current.getVersion()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User was modified");
+        }
+        enter.setVersion(current.getVersion());
+        enter.setPassword(passwordService.hash(enter.getPassword()));
+        User saved = userrepo.save(enter);
+        eventPublisher.publishEvent(UserChange.updated(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Updates only the supplied fields of a user.
+     * 
+     * The update is a single targeted UPDATE statement without reading the row
+     * first. The password, if supplied, is stored as a bcrypt hash, the
+     * cached user is evicted and the change is published to the change feed.
+     * 
+     * @param id    the ID of the user to be updated.
+     * @param patch the fields to update.
+     * @return true if the user was updated, false if it does not exist.
+     */
+    @CacheEvict(cacheNames = USER_CACHE, key = "#id")
+    public boolean patch(int id, UserPatch patch) {
+        if (patch.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
+        }
+        if (patch.password() != null) {
+            patch = patch.withPassword(passwordService.hash(patch.password()));
+        }
+        if (userrepo.patch(id, patch) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(UserChange.updated(id));
+        return true;
     }
 
     /**
      * Retrieves a list of all active users.
      * 
+     * Concurrent calls share a single query.
+     * 
      * @return a list of users with active status.
      */
-    public List<User> getAll() {
-        return userrepo.findByStatus();
+    public List<UserSummary> getAll() {
+        return activeLoads.load(Boolean.TRUE,
+                () -> readOnlyTransaction.execute(status -> List.copyOf(userrepo.findByStatus())));
+    }
+
+    /**
+     * Retrieves one page of active users using keyset pagination on the ID.
+     * 
+     * Concurrent calls for the same page share a single query.
+     * 
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit  the requested page size, or null for the default size.
+     * @return the page of users, the cursor for the next page, if any, and the page ETag.
+     */
+    public UserPage getPage(String cursor, Integer limit) {
+        PageKey key = new PageKey(decodeCursor(cursor), pageSize(limit));
+        return pageLoads.load(key, () -> readOnlyTransaction.execute(status -> loadPage(key.after(), key.size())));
+    }
+
+    /**
+     * Loads one page of active users, in the current transaction.
+     * 
+     * @param after the last user ID already returned to the client.
+     * @param size  the page size.
+     * @return the page of users, the cursor for the next page, if any, and the page ETag.
+     */
+    private UserPage loadPage(int after, int size) {
+        // Fetch one extra row to know whether another page exists
+        List<UserSummary> rows = List.copyOf(userrepo.findActiveAfter(after, Limit.of(size + 1)));
+        long hash = PAGE_TAG_SEED;
+        for (UserSummary row : rows) {
+            hash = mixPageTag(hash, row.id(), row.version());
+        }
+        if (rows.size() <= size) {
+            return new UserPage(rows, null, pageTag(hash));
+        }
+        List<UserSummary> items = rows.subList(0, size);
+        return new UserPage(items, encodeCursor(items.get(size - 1).id()), pageTag(hash));
+    }
+
+    /**
+     * Computes the ETag of a page of active users without fetching the users.
+     * 
+     * The tag is derived from the IDs and versions of the page, read from the
+     * index only, and matches the ETag returned by {@link #getPage(String, Integer)}.
+     * 
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit  the requested page size, or null for the default size.
+     * @return the page ETag.
+     */
+    @Transactional(readOnly = true)
+    public String getPageTag(String cursor, Integer limit) {
+        List<UserVersion> rows = userrepo.findActiveVersionsAfter(decodeCursor(cursor), Limit.of(pageSize(limit) + 1));
+        long hash = PAGE_TAG_SEED;
+        for (UserVersion row : rows) {
+            hash = mixPageTag(hash, row.id(), row.version());
+        }
+        return pageTag(hash);
+    }
+
+    /**
+     * Resolves the page size requested by the client.
+     * 
+     * @param limit the requested page size, or null for the default size.
+     * @return the page size, capped at the maximum page size.
+     */
+    private int pageSize(Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be greater than zero");
+        }
+        return size;
+    }
+
+    /**
+     * Adds one user to the hash of a page.
+     * 
+     * @param hash    the hash of the previous users of the page.
+     * @param id      the ID of the user.
+     * @param version the version of the user.
+     * @return the new hash.
+     */
+    private static long mixPageTag(long hash, int id, long version) {
+        hash = (hash ^ id) * 0x100000001b3L;
+        return (hash ^ version) * 0x100000001b3L;
+    }
+
+    /**
+     * Formats the hash of a page as an ETag.
+     * 
+     * @param hash the hash of the users of the page.
+     * @return the ETag.
+     */
+    private static String pageTag(long hash) {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Encodes the last ID of a page as an opaque cursor.
+     * 
+     * @param id the last user ID of the page.
+     * @return the cursor string.
+     */
+    private static String encodeCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Integer.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(int)}.
+     * 
+     * @param cursor the cursor string, or null for the first page.
+     * @return the last user ID already returned to the client.
+     */
+    private static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Writes every user to the given stream as newline-delimited JSON.
+     * 
+     * Users are read from a database cursor as projections without the
+     * password, and written in chunks, so memory use stays flat regardless of
+     * the table size.
+     * 
+     * @param out the stream to write to.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void export(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<UserExport> users = userrepo.streamAll();
+                JsonGenerator generator = objectMapper.createGenerator(out)) {
+            Iterator<UserExport> iterator = users.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % exportChunkSize == 0) {
+                    generator.flush();
+                }
+            }
+        }
     }
 
     /**
      * Retrieves a user by their ID.
      * 
+     * Users are read through the in-process cache. Missing users are not cached.
+     * Concurrent cache misses for the same ID share a single query.
+     * 
      * @param id the ID of the user to be retrieved.
      * @return an Optional containing the user if found, otherwise empty.
      */
-    public Optional<User> getId(int id) {
-        return userrepo.findById(id);
+    @Cacheable(cacheNames = USER_CACHE, key = "#id", unless = "#result == null")
+    public Optional<UserSummary> getId(int id) {
+        // Cache fills read the primary so that a lagging replica cannot cache a stale user
+        return userLoads.load(id, () -> ReplicaRoutingDataSource.onPrimary(() -> userrepo.findSummaryById(id)));
     }
 
     /**
      * Validates user login credentials.
      * 
+     * The user is looked up with a single indexed seek on the email or the
+     * nickname, in a read-only transaction served by a read replica, and the
+     * password is verified in the application. An unknown identifier costs a
+     * verification as well, so the response time does not reveal which
+     * identifiers exist. Legacy plain text passwords and
+     * hashes of a lower cost are hashed again on a successful login. As this
+     * changes the version of the user, the cached user is evicted and the
+     * change is published to the change feed. If the replica was behind the
+     * primary, the new hash is not saved and is computed again on a later
+     * login.
+     * 
      * @param identifier the email or nickname of the user.
      * @param password   the password of the user.
-     * @return a string indicating whether the credentials are valid or not.
+     * @return the authenticated user if the credentials are valid, otherwise empty.
+     */
+    public Optional<UserSummary> login(String identifier, String password) {
+        Optional<User> user = readOnlyTransaction.execute(status -> findByIdentifier(identifier));
+        if (user.isEmpty()) {
+            passwordService.matchesNone(password);
+            return Optional.empty();
+        }
+        if (!passwordService.matches(password, user.get().getPassword())) {
+            return Optional.empty();
+        }
+        User found = user.get();
+        if (passwordService.needsRehash(found.getPassword())) {
+            found.setPassword(passwordService.hash(password));
+            try {
+                found = userrepo.save(found);
+                cacheManager.getCache(USER_CACHE).evict(found.getId());
+                eventPublisher.publishEvent(UserChange.updated(found.getId()));
+            } catch (OptimisticLockingFailureException e) {
+                // Read from a replica that had not caught up with the last change of the user
+            }
+        }
+        return Optional.of(new UserSummary(found.getId(), found.getName(), found.getLastName(), found.getNickName(),
+                found.isStatus(), found.getVersion()));
+    }
+
+    /**
+     * Finds a user by email or nickname.
+     * 
+     * Identifiers containing '@' are looked up as emails first, falling back to
+     * the nickname in case a nickname contains '@'.
+     * 
+     * @param identifier the email or nickname of the user.
+     * @return an Optional containing the user if found, otherwise empty.
      */
-    public String login(String identifier, String password) {
-        Optional<User> user = userrepo.findByIdentifierAndPassword(identifier, password);
-        return user.isPresent() ? "validPassword" : "invalidPassword";
+    private Optional<User> findByIdentifier(String identifier) {
+        if (identifier.indexOf('@') >= 0) {
+            Optional<User> user = userrepo.findByEmail(identifier);
+            return user.isPresent() ? user : userrepo.findByNickName(identifier);
+        }
+        return userrepo.findByNickName(identifier);
     }
 }
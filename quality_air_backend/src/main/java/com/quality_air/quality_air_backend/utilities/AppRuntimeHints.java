@@ -0,0 +1,58 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import com.quality_air.quality_air_backend.controller.ReactiveUserController;
+import com.quality_air.quality_air_backend.controller.UserController;
+import com.quality_air.quality_air_backend.dto.UserBatchResult;
+import com.quality_air.quality_air_backend.dto.UserChange;
+import com.quality_air.quality_air_backend.dto.UserExport;
+import com.quality_air.quality_air_backend.dto.UserPage;
+import com.quality_air.quality_air_backend.dto.UserPatch;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.dto.UserVersion;
+import com.quality_air.quality_air_backend.entities.User;
+import com.quality_air.quality_air_backend.security.SessionClaims;
+import com.quality_air.quality_air_backend.security.SessionToken;
+
+/**
+ * Reflection and resource hints for the ahead-of-time processed application.
+ *
+ * They cover what Spring cannot infer at build time: the User entity and its
+ * Lombok-generated accessors, read by Hibernate and Jackson; the DTOs built
+ * by JPQL constructor expressions or serialized by Jackson; the Swagger
+ * annotations of the controllers read by springdoc; and the types Hibernate
+ * proxies implement.
+ */
+public class AppRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] BEAN_MEMBERS = { MemberCategory.DECLARED_FIELDS,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerType(User.class, BEAN_MEMBERS);
+        for (Class<?> type : new Class<?>[] { UserSummary.class, UserVersion.class, UserPatch.class,
+                UserBatchResult.class, UserPage.class, UserChange.class, UserExport.class, SessionClaims.class,
+                SessionToken.class }) {
+            hints.reflection().registerType(type, BEAN_MEMBERS);
+        }
+
+        // springdoc reads the @Operation annotations of the handler methods
+        hints.reflection().registerType(UserController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(ReactiveUserController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/*");
+
+        // Hibernate proxies of User implement these types and dispatch through them
+        for (String type : new String[] { "org.hibernate.proxy.HibernateProxy",
+                "org.hibernate.proxy.ProxyConfiguration",
+                "org.hibernate.proxy.ProxyConfiguration$Interceptor",
+                "org.hibernate.proxy.ProxyConfiguration$InterceptorDispatcher",
+                "org.hibernate.engine.spi.PersistentAttributeInterceptable" }) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the in-process cache.
+ * <p>
+ * The cache names and the Caffeine size, expiry and statistics settings are
+ * defined in the application properties file.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,32 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Configuration class for the binary encoding of request and response bodies.
+ * <p>
+ * Clients sending {@code Accept: application/cbor} receive CBOR instead of
+ * JSON, and may send CBOR bodies with {@code Content-Type: application/cbor}.
+ * JSON stays the default. The CBOR mapper is built with the same settings and
+ * serializers as the JSON one.
+ * </p>
+ */
+@Configuration
+public class ContentNegotiationConfig {
+
+    /**
+     * Creates the CBOR message converter, replacing the default one.
+     * 
+     * @param builder the object mapper builder configured by Spring Boot.
+     * @return the CBOR message converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,86 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration class routing read-only transactions to read replicas.
+ * 
+ * Active when at least one replica is configured with
+ * {@code app.datasource.replicas[0].url}. The primary keeps the
+ * {@code spring.datasource} settings and each replica gets its own pool.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    /**
+     * Creates the connection pool of the primary database.
+     * 
+     * @param properties the {@code spring.datasource} settings.
+     * @return the primary data source.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates the data source routing connections between the primary and the replicas.
+     * 
+     * The replica pools publish the same hikaricp metrics as the primary pool,
+     * tagged with their pool name.
+     * 
+     * @param primaryDataSource the primary data source.
+     * @param properties        the replica settings.
+     * @param meterRegistry     the registry of the replica pool metrics, if any.
+     * @return the routing data source.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+            ReadReplicaProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        List<DataSource> replicas = properties.getReplicas().stream().map(replica -> {
+            HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(replica.getUrl()).username(replica.getUsername()).password(replica.getPassword()).build();
+            dataSource.setPoolName("replica-" + properties.getReplicas().indexOf(replica));
+            dataSource.setConnectionTimeout(properties.getReplicaConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            meterRegistry.ifAvailable(dataSource::setMetricRegistry);
+            return (DataSource) dataSource;
+        }).toList();
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, properties.getReadYourWritesWindow());
+    }
+
+    /**
+     * Exposes the routing data source to JPA and JDBC.
+     * 
+     * The lazy proxy defers taking a connection until the first statement, once
+     * the transaction has been marked read-only.
+     * 
+     * @param replicaRoutingDataSource the routing data source.
+     * @return the data source used by the application.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,102 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read replica settings bound from the {@code app.datasource} properties.
+ */
+@ConfigurationProperties("app.datasource")
+public class ReadReplicaProperties {
+
+    /**
+     * Replicas serving read-only transactions.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Time after a write during which the same caller reads from the primary.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /**
+     * Interval between two health checks of the replicas.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Maximum time to wait for a replica connection before failing over to the primary.
+     */
+    private Duration replicaConnectionTimeout = Duration.ofSeconds(1);
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public Duration getReplicaConnectionTimeout() {
+        return replicaConnectionTimeout;
+    }
+
+    public void setReplicaConnectionTimeout(Duration replicaConnectionTimeout) {
+        this.replicaConnectionTimeout = replicaConnectionTimeout;
+    }
+
+    /**
+     * Connection settings of one replica.
+     */
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quality_air.quality_air_backend.dto.UserChange;
+import com.quality_air.quality_air_backend.security.SessionClaims;
+import com.quality_air.quality_air_backend.security.SessionTokenFilter;
+
+/**
+ * Data source routing read-only transactions to the read replicas.
+ * 
+ * Connections of read-only transactions are taken from the healthy replicas in
+ * round-robin order; every other connection comes from the primary. A caller
+ * whose write has been committed keeps reading from the primary for the
+ * read-your-writes window, so it never sees a replica that has not caught up
+ * with its own write. Plain reads on the primary, such as cache fills, do not
+ * count as writes. Callers are identified by their session token, or by their
+ * address when they have none. A replica that fails a health check or a
+ * connection attempt is skipped until it passes a health check again.
+ * 
+ * It must be wrapped in a lazy connection proxy so that the connection is only
+ * taken once the transaction is marked read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final List<DataSource> replicas;
+
+    private final AtomicIntegerArray down;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * Creates the routing data source.
+     * 
+     * @param primary              the primary data source.
+     * @param replicas             the replica data sources.
+     * @param readYourWritesWindow the time after a write during which the caller reads from the primary.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow) {
+        this.replicas = replicas;
+        this.down = new AtomicIntegerArray(replicas.size());
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).maximumSize(100_000).build();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs a read on the primary, whatever its transaction.
+     * 
+     * Used for reads that must not observe replica lag, such as the ones
+     * filling a cache.
+     * 
+     * @param read the read to run.
+     * @return the result of the read.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    /**
+     * Sends the reads of the writing caller to the primary for the
+     * read-your-writes window.
+     * 
+     * It runs on the writing thread once the change is committed.
+     * 
+     * @param change the committed change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void recordWrite(UserChange change) {
+        String caller = caller();
+        if (caller != null) {
+            recentWriters.put(caller, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || FORCE_PRIMARY.get() != null) {
+            return PRIMARY;
+        }
+        String caller = caller();
+        if (caller != null && recentWriters.getIfPresent(caller) != null) {
+            return PRIMARY;
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            int index = Math.floorMod(next.getAndIncrement(), replicas.size());
+            if (down.get(index) == 0) {
+                return index;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return ((DataSource) getResolvedDefaultDataSource()).getConnection();
+        }
+        int index = (Integer) key;
+        try {
+            return replicas.get(index).getConnection();
+        } catch (SQLException e) {
+            markDown(index, e);
+            return ((DataSource) getResolvedDefaultDataSource()).getConnection();
+        }
+    }
+
+    /**
+     * Checks that each replica accepts connections, bringing recovered replicas back.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.health-check-interval:PT5S}")
+    public void checkHealth() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try (Connection connection = replicas.get(i).getConnection()) {
+                if (!connection.isValid(1)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                if (down.getAndSet(i, 0) != 0) {
+                    log.info("Read replica {} is back up", i);
+                }
+            } catch (SQLException e) {
+                markDown(i, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the replica connection pools.
+     */
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Cannot close read replica pool", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops routing reads to a replica until it passes a health check.
+     * 
+     * @param index the index of the replica.
+     * @param cause the failure.
+     */
+    private void markDown(int index, SQLException cause) {
+        if (down.getAndSet(index, 1) == 0) {
+            log.warn("Read replica {} is down, reading from the primary: {}", index, cause.getMessage());
+        }
+    }
+
+    /**
+     * Identifies the caller of the current request.
+     * 
+     * @return the user ID of the session token or the client address, or null outside a request.
+     */
+    private static String caller() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes request)) {
+            return null;
+        }
+        Object claims = request.getAttribute(SessionTokenFilter.CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (claims instanceof SessionClaims session) {
+            return "user:" + session.userId();
+        }
+        return "ip:" + request.getRequest().getRemoteAddr();
+    }
+}
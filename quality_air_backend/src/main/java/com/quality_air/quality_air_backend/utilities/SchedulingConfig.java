@@ -0,0 +1,12 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling scheduled maintenance tasks.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,132 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.quality_air.quality_air_backend.entities.User;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Configuration class for the Hibernate second-level and query cache.
+ * <p>
+ * Active with the "l2cache" profile. The cache regions live in a Caffeine
+ * JCache manager owned by the application context, whose size is set by the
+ * {@code l2cache.max-entries} property, and the cache statistics are logged
+ * periodically.
+ * </p>
+ */
+@Configuration
+@Profile("l2cache")
+public class SecondLevelCacheConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+
+    @Value("${l2cache.max-entries}")
+    private long maxEntries;
+
+    @Autowired
+    @Lazy
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Creates the JCache manager holding the Hibernate cache regions.
+     * 
+     * The entity and query result regions are bounded. The update timestamps
+     * region is never evicted, since query cache correctness depends on it.
+     * The manager has its own URI rather than the default one shared by the
+     * whole JVM, so several application contexts can each create their regions.
+     * 
+     * @return the cache manager.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(User.CACHE_REGION, boundedRegion());
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, boundedRegion());
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<Object, Object>());
+        return cacheManager;
+    }
+
+    /**
+     * Hands the cache manager to Hibernate.
+     * 
+     * @param hibernateCacheManager the cache manager holding the regions.
+     * @return the customizer adding the cache manager to the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+
+    /**
+     * Logs the hit ratio of the user entity region and the query cache.
+     * 
+     * The number of cached users is read from the Caffeine cache, as the
+     * JCache region does not report it to Hibernate.
+     */
+    @Scheduled(fixedDelayString = "${l2cache.statistics-log-interval-ms}")
+    public void logStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics users = statistics.getDomainDataRegionStatistics(User.CACHE_REGION);
+        long entries = hibernateCacheManager().getCache(User.CACHE_REGION)
+                .unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+        log.info("Second-level cache: user hit ratio={} (hits={} misses={} puts={} entries={}), "
+                + "query cache hit ratio={} (hits={} misses={} puts={})",
+                hitRatio(users.getHitCount(), users.getMissCount()), users.getHitCount(), users.getMissCount(),
+                users.getPutCount(), entries,
+                hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount());
+    }
+
+    /**
+     * Formats the share of lookups served by the cache.
+     * 
+     * @param hits   the lookups found in the cache.
+     * @param misses the lookups not found in the cache.
+     * @return the hit ratio as a percentage, or "n/a" before the first lookup.
+     */
+    static String hitRatio(long hits, long misses) {
+        if (hits + misses == 0) {
+            return "n/a";
+        }
+        return String.format(Locale.ROOT, "%.1f%%", 100.0 * hits / (hits + misses));
+    }
+
+    /**
+     * Creates the configuration of a region bounded to the configured number of entries.
+     * 
+     * @return the region configuration.
+     */
+    private CaffeineConfiguration<Object, Object> boundedRegion() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
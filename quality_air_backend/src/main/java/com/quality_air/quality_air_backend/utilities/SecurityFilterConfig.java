@@ -0,0 +1,45 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.quality_air.quality_air_backend.security.LoginThrottle;
+import com.quality_air.quality_air_backend.security.LoginThrottleFilter;
+import com.quality_air.quality_air_backend.security.SessionTokenFilter;
+import com.quality_air.quality_air_backend.security.SessionTokenService;
+
+/**
+ * Configuration class registering the security filters.
+ */
+@Configuration
+public class SecurityFilterConfig {
+
+    /**
+     * Registers the filter verifying session tokens on every request.
+     * 
+     * @param sessionTokenService the service verifying the tokens.
+     * @return the filter registration.
+     */
+    @Bean
+    public FilterRegistrationBean<SessionTokenFilter> sessionTokenFilter(SessionTokenService sessionTokenService) {
+        FilterRegistrationBean<SessionTokenFilter> registration = new FilterRegistrationBean<>(
+                new SessionTokenFilter(sessionTokenService));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    /**
+     * Registers the filter throttling login attempts.
+     * 
+     * @param loginThrottle the service holding the login buckets.
+     * @return the filter registration.
+     */
+    @Bean
+    public FilterRegistrationBean<LoginThrottleFilter> loginThrottleFilter(LoginThrottle loginThrottle) {
+        FilterRegistrationBean<LoginThrottleFilter> registration = new FilterRegistrationBean<>(
+                new LoginThrottleFilter(loginThrottle));
+        registration.addUrlPatterns("/user/login");
+        return registration;
+    }
+}
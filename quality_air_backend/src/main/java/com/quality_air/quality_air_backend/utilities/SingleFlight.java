@@ -0,0 +1,121 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Coalesces concurrent loads of the same key into a single call.
+ * 
+ * The first caller for a key runs the loader on its own thread; callers
+ * arriving while it runs wait for its result instead of running the loader
+ * again. The key is removed as soon as the load completes, successfully or
+ * not, so only loads in progress are kept in memory and a failed load is
+ * retried by the next caller.
+ * 
+ * Each load is tagged with the generation in which it started. Writes call
+ * {@link #invalidate()} once committed, so a caller arriving after a write,
+ * such as the writer reading its own change, never joins a load that started
+ * before it and may have read the previous data.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the loaded values.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long timeoutNanos;
+
+    /**
+     * Load in progress together with the generation in which it started.
+     *
+     * @param generation the generation in which the load started.
+     * @param result     the result of the load.
+     */
+    private record Flight<V>(long generation, CompletableFuture<V> result) {
+    }
+
+    /**
+     * Creates a coalescing group.
+     * 
+     * @param timeout the maximum time a caller waits for a load started by another caller.
+     */
+    public SingleFlight(Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Returns the value for a key, joining the load already in progress if any.
+     * 
+     * A load started before the last invalidation is not joined: the caller
+     * runs a new load, which later callers join instead.
+     * 
+     * @param key    the key to load.
+     * @param loader the function loading the value.
+     * @return the loaded value.
+     * @throws ResponseStatusException with status 503 if the wait for another caller's load times out.
+     */
+    public V load(K key, Supplier<V> loader) {
+        Flight<V> own = new Flight<>(generation.get(), new CompletableFuture<>());
+        Flight<V> running = inFlight.compute(key,
+                (k, current) -> current != null && current.generation() >= own.generation() ? current : own);
+        if (running == own) {
+            try {
+                V value = loader.get();
+                own.result().complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                own.result().completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, own);
+            }
+        }
+        try {
+            return running.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for a concurrent load");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for a concurrent load");
+        }
+    }
+
+    /**
+     * Stops later callers from joining the loads in progress.
+     * 
+     * Called once a write is committed, so that the loads started before it
+     * are not shared with callers expecting to see it.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of loads in progress.
+     * 
+     * @return the number of keys being loaded.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
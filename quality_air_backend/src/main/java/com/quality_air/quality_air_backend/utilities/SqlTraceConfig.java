@@ -0,0 +1,50 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Configuration class enabling the sampled SQL tracing.
+ * 
+ * The data source used by the application is wrapped in a proxy notifying a
+ * {@link SqlTraceListener} after each statement and around each JDBC call,
+ * to time the binding of parameters. Disabled with
+ * {@code sql.trace.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.trace.enabled", havingValue = "true")
+public class SqlTraceConfig {
+
+    /**
+     * Wraps the application data source in the tracing proxy.
+     * 
+     * @param environment the environment holding the {@code sql.trace} settings.
+     * @return the post processor wrapping the data source.
+     */
+    @Bean
+    public static BeanPostProcessor sqlTraceDataSourcePostProcessor(Environment environment) {
+        SqlTraceListener listener = new SqlTraceListener(
+                environment.getRequiredProperty("sql.trace.sample-rate", Double.class),
+                environment.getRequiredProperty("sql.trace.slow-threshold", Duration.class).toMillis(),
+                environment.getRequiredProperty("sql.trace.include-parameters", Boolean.class));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(listener)
+                            .methodListener(listener).build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static net.logstash.logback.argument.StructuredArguments.entries;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.StatementMethodNames;
+
+/**
+ * Listener logging a sample of the executed SQL statements.
+ * 
+ * A statement is logged when it is slower than the threshold, or at random
+ * with the sample rate. The other statements only cost a comparison and a
+ * random draw. Events are written to the {@code sql.trace} logger, which is
+ * routed to an asynchronous JSON appender, with the elapsed time, the time
+ * spent binding parameters, the batch size, the bind parameters if enabled
+ * and the service method that issued the statement.
+ * 
+ * The binding time is the sum of the parameter setter calls made on the
+ * thread since its previous statement, measured in nanoseconds because each
+ * call is far below the millisecond resolution of the execution time.
+ */
+public class SqlTraceListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger("sql.trace");
+
+    private static final String SERVICE_PACKAGE = "com.quality_air.quality_air_backend.services.";
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /**
+     * Start of the setter call in progress and nanoseconds spent binding the
+     * parameters of the next statement of the thread.
+     */
+    private static final ThreadLocal<long[]> BINDING = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final double sampleRate;
+
+    private final long slowThresholdMillis;
+
+    private final boolean includeParameters;
+
+    /**
+     * Creates the listener.
+     * 
+     * @param sampleRate          the fraction of statements to log, between 0 and 1.
+     * @param slowThresholdMillis the elapsed time from which statements are always logged.
+     * @param includeParameters   whether to log the bind parameters.
+     */
+    public SqlTraceListener(double sampleRate, long slowThresholdMillis, boolean includeParameters) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.includeParameters = includeParameters;
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        if (isBinding(executionContext)) {
+            BINDING.get()[0] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (isBinding(executionContext)) {
+            long[] binding = BINDING.get();
+            binding[1] += System.nanoTime() - binding[0];
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long[] binding = BINDING.get();
+        long bindNanos = binding[1];
+        binding[1] = 0;
+        boolean slow = execInfo.getElapsedTime() >= slowThresholdMillis;
+        if (!slow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("elapsed_ms", execInfo.getElapsedTime());
+        event.put("bind_us", TimeUnit.NANOSECONDS.toMicros(bindNanos));
+        event.put("slow", slow);
+        event.put("success", execInfo.isSuccess());
+        event.put("statement_type", execInfo.getStatementType().name());
+        event.put("batch_size", execInfo.getBatchSize());
+        event.put("origin", origin());
+        List<String> queries = new ArrayList<>(queryInfoList.size());
+        for (QueryInfo query : queryInfoList) {
+            queries.add(query.getQuery());
+        }
+        event.put("sql", queries.size() == 1 ? queries.get(0) : queries);
+        if (includeParameters) {
+            event.put("parameters", parameters(queryInfoList));
+        }
+        log.info("SQL {} ms", execInfo.getElapsedTime(), entries(event));
+    }
+
+    /**
+     * Tells whether a JDBC call binds a parameter of a prepared statement.
+     * 
+     * @param executionContext the call.
+     * @return true for the parameter setters of prepared and callable statements.
+     */
+    private static boolean isBinding(MethodExecutionContext executionContext) {
+        return executionContext.getTarget() instanceof PreparedStatement
+                && StatementMethodNames.PARAMETER_METHODS.contains(executionContext.getMethod().getName());
+    }
+
+    /**
+     * Finds the service method that issued the current statement.
+     * 
+     * The outermost service frame is used, so the statement is attributed to
+     * the public method called by the controller rather than to a helper.
+     * 
+     * @return the service class and method, or null if the statement was not issued from a service.
+     */
+    private static String origin() {
+        return WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICE_PACKAGE)
+                        && !frame.getClassName().contains("$$")
+                        && !frame.getMethodName().startsWith("lambda$"))
+                .reduce((inner, outer) -> outer)
+                .map(frame -> frame.getClassName().substring(SERVICE_PACKAGE.length()) + "." + frame.getMethodName())
+                .orElse(null));
+    }
+
+    /**
+     * Lists the bind parameters of each statement of a batch.
+     * 
+     * @param queryInfoList the statements.
+     * @return the parameter values of each statement, in order.
+     */
+    private static List<List<Object>> parameters(List<QueryInfo> queryInfoList) {
+        List<List<Object>> parameters = new ArrayList<>();
+        for (QueryInfo query : queryInfoList) {
+            for (List<ParameterSetOperation> operations : query.getParametersList()) {
+                List<Object> values = new ArrayList<>(operations.size());
+                for (ParameterSetOperation operation : operations) {
+                    Object[] args = operation.getArgs();
+                    values.add(args.length > 1 ? String.valueOf(args[1]) : null);
+                }
+                parameters.add(values);
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,103 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs how long the application took to start.
+ *
+ * When the application records its startup steps, as it does when started
+ * from its main method, the time of each startup phase and of the slowest
+ * beans is logged once the application is ready. Steps are nested, so each
+ * time is the self time of the step, excluding the steps it started: the
+ * time of a bean excludes the beans it created as dependencies, and the time
+ * of a phase excludes its nested phases and beans. The phase times then add
+ * up to the recorded startup time. The full timeline remains available at
+ * {@code /actuator/startup}.
+ */
+@Component
+public class StartupTimingReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingReport.class);
+
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+
+    @Value("${startup.report.top-beans}")
+    private int topBeans;
+
+    /**
+     * Logs the startup timing of the application.
+     *
+     * @param event the event published when the application is ready.
+     */
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+
+        // Time spent in the steps started by each step
+        Map<Long, Long> nested = new HashMap<>();
+        for (TimelineEvent timelineEvent : events) {
+            Long parentId = timelineEvent.getStartupStep().getParentId();
+            if (parentId != null) {
+                nested.merge(parentId, timelineEvent.getDuration().toNanos(), Long::sum);
+            }
+        }
+        // Self times of the phases, summed by step name in the order they started
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (TimelineEvent timelineEvent : events) {
+            phases.merge(timelineEvent.getStartupStep().getName(), selfTime(timelineEvent, nested), Long::sum);
+        }
+        log.info("Started in {} ms", event.getTimeTaken().toMillis());
+        phases.forEach((name, nanos) -> log.info("Startup phase {} took {} ms", name, nanos / 1_000_000));
+
+        events.stream()
+                .filter(timelineEvent -> BEAN_STEP.equals(timelineEvent.getStartupStep().getName()))
+                .map(timelineEvent -> Map.entry(beanName(timelineEvent.getStartupStep()),
+                        selfTime(timelineEvent, nested)))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(topBeans)
+                .forEach(bean -> log.info("Startup bean {} took {} ms", bean.getKey(), bean.getValue() / 1_000_000));
+    }
+
+    /**
+     * Computes the time of a startup step, excluding the steps it started.
+     *
+     * @param timelineEvent the recorded step.
+     * @param nested        the time spent in the steps started by each step, by step ID.
+     * @return the self time of the step, in nanoseconds.
+     */
+    private static long selfTime(TimelineEvent timelineEvent, Map<Long, Long> nested) {
+        return timelineEvent.getDuration().toNanos() - nested.getOrDefault(timelineEvent.getStartupStep().getId(), 0L);
+    }
+
+    /**
+     * Reads the name of the bean created in a startup step.
+     *
+     * @param step the bean instantiation step.
+     * @return the bean name, or the step name if it has no bean name tag.
+     */
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
@@ -0,0 +1,59 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import java.io.IOException;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+
+/**
+ * Serializer of the user summaries returned by the list and detail endpoints.
+ * 
+ * It writes the fields directly instead of introspecting the record and
+ * calling its accessors through reflection, with the field names encoded
+ * once. The output is the same as the default serialization, in JSON as well
+ * as in CBOR.
+ */
+@JsonComponent
+public class UserSummarySerializer extends StdSerializer<UserSummary> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString LAST_NAME = new SerializedString("lastName");
+    private static final SerializableString NICK_NAME = new SerializedString("nickName");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    public UserSummarySerializer() {
+        super(UserSummary.class);
+    }
+
+    @Override
+    public void serialize(UserSummary user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(user, 6);
+        generator.writeFieldName(ID);
+        if (user.id() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(user.id());
+        }
+        generator.writeFieldName(NAME);
+        generator.writeString(user.name());
+        generator.writeFieldName(LAST_NAME);
+        generator.writeString(user.lastName());
+        generator.writeFieldName(NICK_NAME);
+        generator.writeString(user.nickName());
+        generator.writeFieldName(STATUS);
+        generator.writeBoolean(user.status());
+        generator.writeFieldName(VERSION);
+        generator.writeNumber(user.version());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,20 @@
+-- Users and the pooled identifier sequence, as previously created by Hibernate.
+
+create table if not exists user (
+    id integer not null,
+    date date not null,
+    dni varchar(255) not null,
+    email varchar(255) not null,
+    last_name varchar(255),
+    name varchar(255),
+    nick_name varchar(255) not null,
+    password varchar(255) not null,
+    status boolean not null,
+    version bigint not null,
+    primary key (id)
+);
+
+-- The indexes are created by V2, once databases of the original application have the
+-- version column and no duplicate users.
+
+create sequence if not exists user_seq start with 1 increment by 50;
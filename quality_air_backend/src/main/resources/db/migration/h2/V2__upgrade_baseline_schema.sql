@@ -0,0 +1,40 @@
+-- Brings databases created by the original application up to the V1 schema.
+-- Their user table was generated from the first entity: an auto-increment id, no version
+-- column and no indexes, with an admin user inserted on every start. Flyway baselines them at
+-- version 0 and V1 leaves the existing table as is, so each step below does nothing on
+-- databases already created by V1.
+
+-- Optimistic locking and ETags
+alter table user add column if not exists version bigint not null default 0;
+
+-- Identifiers now come from user_seq
+alter table user alter column id drop identity;
+
+-- Logins are unique by nickname and by email. The original application inserted the same admin
+-- user on every start: keep the first one and remove its copies
+delete from user later
+where later.nick_name = 'admin' and later.email = 'admin@correo.com' and later.password = 'admin'
+  and exists (select * from user kept
+      where kept.nick_name = 'admin' and kept.email = 'admin@correo.com' and kept.password = 'admin'
+        and kept.id < later.id);
+
+-- Any other duplicates are real users, to be merged by hand before the unique indexes can be
+-- created. H2 has no statement raising an error, so the IDs of each group are reported by
+-- failing to convert the message to a number
+select cast('Users share a nickname or email, merge them and migrate again. IDs: '
+        || listagg(ids, '; ') as integer)
+from (
+    select listagg(id, ',') within group (order by id) ids from user group by nick_name having count(*) > 1
+    union all
+    select listagg(id, ',') within group (order by id) ids from user group by email having count(*) > 1
+) duplicates
+having count(*) > 0;
+
+create unique index if not exists ux_user_nick_name on user (nick_name);
+create unique index if not exists ux_user_email on user (email);
+
+-- Keyset pages of active users and their ETags, read from the index only
+create index if not exists idx_user_status_id_version on user (status, id, version);
+
+-- Identifiers handed out by user_seq must follow the existing users
+alter sequence user_seq restart with (select coalesce(max(id), 0) + 51 from user);
@@ -0,0 +1,31 @@
+-- Users and the pooled identifier sequence, as previously created by Hibernate.
+-- Statements are guarded so that databases created by ddl-auto are baselined without changes.
+
+create table if not exists user (
+    id integer not null,
+    date date not null,
+    dni varchar(255) not null,
+    email varchar(255) not null,
+    last_name varchar(255),
+    name varchar(255),
+    nick_name varchar(255) not null,
+    password varchar(255) not null,
+    status bit not null,
+    version bigint not null,
+    primary key (id),
+    -- Keyset pages of active users and their ETags, read from the index only
+    index idx_user_status_id_version (status, id, version),
+    -- Login by email or nickname
+    unique index ux_user_email (email),
+    unique index ux_user_nick_name (nick_name)
+) engine=InnoDB;
+
+-- MySQL has no sequences; Hibernate emulates user_seq with a single-row table.
+-- Existing users are skipped, as the pooled optimizer hands out the 50 IDs below next_val.
+create table if not exists user_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into user_seq (next_val)
+select coalesce(max(id) + 51, 1) from user
+where not exists (select * from user_seq);
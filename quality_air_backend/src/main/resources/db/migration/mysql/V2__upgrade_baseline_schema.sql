@@ -0,0 +1,82 @@
+-- Brings databases created by the original application up to the V1 schema.
+-- Their user table was generated from the first entity: an auto-increment id, no version
+-- column and no indexes, with an admin user inserted on every start. Flyway baselines them at
+-- version 0 and V1 leaves the existing table as is, so each step below checks the schema and
+-- does nothing on databases already created by V1.
+
+-- Optimistic locking and ETags
+set @ddl = (select if(count(*) = 0, 'alter table user add column version bigint not null default 0', 'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'user' and column_name = 'version');
+prepare upgrade from @ddl;
+execute upgrade;
+deallocate prepare upgrade;
+
+-- Identifiers now come from user_seq
+set @ddl = (select if(count(*) = 1, 'alter table user modify id integer not null', 'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'user' and column_name = 'id'
+      and extra like '%auto_increment%');
+prepare upgrade from @ddl;
+execute upgrade;
+deallocate prepare upgrade;
+
+-- Logins are unique by nickname and by email. The original application inserted the same admin
+-- user on every start: keep the first one and remove its copies
+delete later from user later
+join user kept on kept.nick_name = later.nick_name and kept.email = later.email
+    and kept.password = later.password and kept.id < later.id
+where later.nick_name = 'admin' and later.email = 'admin@correo.com' and later.password = 'admin';
+
+-- Any other duplicates are real users, to be merged by hand before the unique indexes can be
+-- created: fail with the IDs of each group. The message is cut to the 128 characters allowed
+drop procedure if exists check_duplicate_users;
+
+delimiter //
+create procedure check_duplicate_users()
+begin
+    declare conflicts text;
+    select group_concat(ids separator '; ') into conflicts
+    from (
+        select group_concat(id order by id) ids from user group by nick_name having count(*) > 1
+        union all
+        select group_concat(id order by id) ids from user group by email having count(*) > 1
+    ) duplicates;
+    if conflicts is not null then
+        signal sqlstate '45000'
+            set message_text = left(concat('Users share a nickname or email, merge them and migrate again. IDs: ',
+                conflicts), 128);
+    end if;
+end//
+delimiter ;
+
+call check_duplicate_users();
+
+drop procedure check_duplicate_users;
+
+set @ddl = (select if(count(*) = 0, 'create unique index ux_user_nick_name on user (nick_name)', 'do 0')
+    from information_schema.statistics
+    where table_schema = database() and table_name = 'user' and index_name = 'ux_user_nick_name');
+prepare upgrade from @ddl;
+execute upgrade;
+deallocate prepare upgrade;
+
+set @ddl = (select if(count(*) = 0, 'create unique index ux_user_email on user (email)', 'do 0')
+    from information_schema.statistics
+    where table_schema = database() and table_name = 'user' and index_name = 'ux_user_email');
+prepare upgrade from @ddl;
+execute upgrade;
+deallocate prepare upgrade;
+
+-- Keyset pages of active users and their ETags, read from the index only
+set @ddl = (select if(count(*) = 0, 'create index idx_user_status_id_version on user (status, id, version)', 'do 0')
+    from information_schema.statistics
+    where table_schema = database() and table_name = 'user' and index_name = 'idx_user_status_id_version');
+prepare upgrade from @ddl;
+execute upgrade;
+deallocate prepare upgrade;
+
+-- Identifiers handed out by user_seq must follow the existing users
+update user_seq
+set next_val = (select coalesce(max(id), 0) + 51 from user)
+where next_val < (select coalesce(max(id), 0) + 51 from user);
@@ -0,0 +1,107 @@
+package com.quality_air.quality_air_backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.quality_air.quality_air_backend.dto.UserPage;
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.services.UserService;
+
+/**
+ * Unit tests for the ReactiveUserController class.
+ * 
+ * This class contains tests that validate the functionality of the
+ * ReactiveUserController using MockMvc to perform asynchronous requests and
+ * verify responses.
+ */
+@WebMvcTest(ReactiveUserController.class)
+@ActiveProfiles("test")
+public class ReactiveUserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserService userService;
+
+    /**
+     * Test to stream the active users.
+     * 
+     * This test verifies that the /rx/user endpoint reads every page and
+     * streams the users as newline-delimited JSON.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testStreamUsers() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testStreamUsers...");
+
+        UserSummary user1 = new UserSummary(1, "Juan", "Pérez", "juanp", true, 0);
+        UserSummary user2 = new UserSummary(2, "Ana", "Lopez", "ana", true, 0);
+
+        when(userService.getPage("", null)).thenReturn(new UserPage(List.of(user1), "MQ", "\"a\""));
+        when(userService.getPage("MQ", null)).thenReturn(new UserPage(List.of(user2), null, "\"b\""));
+
+        MvcResult result = mockMvc.perform(get("/rx/user").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).trim().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"nickName\":\"juanp\"");
+        assertThat(lines[1]).contains("\"nickName\":\"ana\"");
+
+        System.out.println("UNIT TEST: testStreamUsers COMPLETED successfully.");
+    }
+
+    /**
+     * Test to retrieve a user by ID.
+     * 
+     * This test verifies that the /rx/user/{id} endpoint returns the user with
+     * a 200 OK status, and 404 for an unknown ID.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testGetUserById() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetUserById...");
+
+        UserSummary user = new UserSummary(1, "Juan", "Pérez", "juanp", true, 3);
+
+        when(userService.getId(1)).thenReturn(Optional.of(user));
+        when(userService.getId(2)).thenReturn(Optional.empty());
+
+        MvcResult found = mockMvc.perform(get("/rx/user/1")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(found))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.nickName").value("juanp"));
+
+        MvcResult missing = mockMvc.perform(get("/rx/user/2")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(missing))
+                .andExpect(status().isNotFound());
+
+        System.out.println("UNIT TEST: testGetUserById COMPLETED successfully.");
+    }
+}
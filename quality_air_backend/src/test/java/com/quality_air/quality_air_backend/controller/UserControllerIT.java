@@ -4,6 +4,9 @@ import com.quality_air.quality_air_backend.entities.User;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -31,6 +34,21 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 public class UserControllerIT {
 
+    /**
+     * Recreates the schema before the tests, so every run starts from an empty database.
+     */
+    @TestConfiguration
+    static class CleanDatabaseConfig {
+
+        @Bean
+        public FlywayMigrationStrategy cleanMigrateStrategy() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
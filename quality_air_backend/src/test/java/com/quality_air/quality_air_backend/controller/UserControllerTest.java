@@ -1,26 +1,46 @@
 package com.quality_air.quality_air_backend.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.quality_air.quality_air_backend.dto.UserBatchResult;
+import com.quality_air.quality_air_backend.dto.UserPage;
+import com.quality_air.quality_air_backend.dto.UserPatch;
+import com.quality_air.quality_air_backend.dto.UserSummary;
 import com.quality_air.quality_air_backend.entities.User;
+import com.quality_air.quality_air_backend.security.SessionClaims;
+import com.quality_air.quality_air_backend.security.SessionToken;
+import com.quality_air.quality_air_backend.security.SessionTokenFilter;
+import com.quality_air.quality_air_backend.security.SessionTokenService;
+import com.quality_air.quality_air_backend.services.UserChangeFeed;
 import com.quality_air.quality_air_backend.services.UserService;
+import com.quality_air.quality_air_backend.utilities.ContentNegotiationConfig;
 
 /**
  * Unit tests for the UserController class.
@@ -30,6 +50,7 @@ import com.quality_air.quality_air_backend.services.UserService;
  */
 @WebMvcTest(UserController.class)
 @ActiveProfiles("test")
+@Import(ContentNegotiationConfig.class)
 public class UserControllerTest {
 
     @Autowired
@@ -38,14 +59,20 @@ public class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private SessionTokenService sessionTokenService;
+
+    @MockBean
+    private UserChangeFeed userChangeFeed;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     /**
-     * Test to retrieve all users.
+     * Test to retrieve a page of users.
      * 
      * This test verifies that the /user endpoint returns a list of users with a
-     * 200 OK status.
+     * 200 OK status and the cursor for the next page.
      * 
      * @throws Exception if an error occurs during the request.
      */
@@ -54,19 +81,80 @@ public class UserControllerTest {
         System.out.println("-------------------------------------------------");
         System.out.println("UNIT TEST: Running testGetAllUsers...");
 
-        User user1 = new User("Juan", "Pérez", "12345678A", "28/10/2012","juan@example.com", "juanp", "password123", true);
-        User user2 = new User("Ana", "Lopez", "98765432B", "28/10/2012", "ana@example.com","ana", "password456", true);
+        UserSummary user1 = new UserSummary(1, "Juan", "Pérez", "juanp", true, 3);
+        UserSummary user2 = new UserSummary(2, "Ana", "Lopez", "ana", true, 0);
 
-        when(userService.getAll()).thenReturn(Arrays.asList(user1, user2));
+        when(userService.getPage(null, 2)).thenReturn(new UserPage(Arrays.asList(user1, user2), "Mg", "\"5f1d\""));
 
-        mockMvc.perform(get("/user"))
+        mockMvc.perform(get("/user").param("limit", "2"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "Mg"))
+                .andExpect(header().string("ETag", "\"5f1d\""))
                 .andExpect(jsonPath("$[0].name").value("Juan"))
                 .andExpect(jsonPath("$[1].name").value("Ana"));
         System.out.println("UNIT TEST: testGetAllUsers COMPLETED successfully.");
     }
 
+    /**
+     * Test to retrieve a page of users encoded in CBOR.
+     * 
+     * This test verifies that the /user endpoint returns the users in CBOR when
+     * the client accepts it, with the same fields as in JSON.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testGetAllUsersCbor() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetAllUsersCbor...");
+
+        UserSummary user1 = new UserSummary(1, "Juan", "Pérez", "juanp", true, 3);
+
+        when(userService.getPage(null, 1)).thenReturn(new UserPage(Arrays.asList(user1), null, "\"5f1d\""));
+
+        MvcResult result = mockMvc.perform(get("/user").param("limit", "1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        JsonNode users = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertThat(users.get(0).get("id").asInt()).isEqualTo(1);
+        assertThat(users.get(0).get("lastName").asText()).isEqualTo("Pérez");
+        assertThat(users.get(0).get("version").asLong()).isEqualTo(3);
+        System.out.println("UNIT TEST: testGetAllUsersCbor COMPLETED successfully.");
+    }
+
+    /**
+     * Test to export all users.
+     * 
+     * This test verifies that the /user/export endpoint streams the users written
+     * by the service as newline-delimited JSON.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testExportUsers() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testExportUsers...");
+
+        String ndjson = "{\"name\":\"Juan\"}\n{\"name\":\"Ana\"}\n";
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(ndjson.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(userService).export(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/user/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(ndjson));
+        System.out.println("UNIT TEST: testExportUsers COMPLETED successfully.");
+    }
+
     /**
      * Test to create a new user.
      * 
@@ -86,13 +174,44 @@ public class UserControllerTest {
 
         mockMvc.perform(post("/user")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(newUser)))
+                .content("{\"name\":\"Carlos\",\"lastName\":\"Sanchez\",\"dni\":\"11223344C\",\"date\":\"2012-10-28\",\"email\":\"carlos@example.com\",\"nickName\":\"carls\",\"password\":\"password789\",\"status\":true}"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("Carlos"))
-                .andExpect(jsonPath("$.email").value("carlos@example.com"));
+                .andExpect(jsonPath("$.email").value("carlos@example.com"))
+                .andExpect(jsonPath("$.password").doesNotExist());
         System.out.println("UNIT TEST: testCreateUser COMPLETED successfully.");
     }
 
+    /**
+     * Test to create a batch of users.
+     * 
+     * This test verifies that the /user/batch endpoint returns the result of each
+     * submitted user, including the ones that failed.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testCreateUserBatch() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testCreateUserBatch...");
+
+        User user1 = new User("Juan", "Pérez", "12345678A", "28/10/2012", "juan@example.com", "juanp", "password123", true);
+        User user2 = new User("Ana", "Lopez", null, "28/10/2012", "ana@example.com", "ana", "password456", true);
+
+        when(userService.insertBatch(any())).thenReturn(Arrays.asList(
+                UserBatchResult.created(0, 7),
+                UserBatchResult.failed(1, "Missing required field: dni")));
+
+        mockMvc.perform(post("/user/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(user1, user2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Missing required field: dni"));
+        System.out.println("UNIT TEST: testCreateUserBatch COMPLETED successfully.");
+    }
+
     /**
      * Test to update an existing user.
      * 
@@ -115,17 +234,91 @@ public class UserControllerTest {
         updatedUser.setPassword("password123");
         updatedUser.setStatus(true);
 
-        when(userService.update(any(User.class))).thenReturn(updatedUser);
+        updatedUser.setVersion(4);
+
+        when(userService.update(any(User.class), eq(3L))).thenReturn(updatedUser);
 
         mockMvc.perform(put("/user/1")
+                .header("If-Match", "\"3\"")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"name\":\"Juan\",\"lastName\":\"Pérez\",\"dni\":\"12345678A\",\"email\":\"juan_updated@example.com\",\"nickName\":\"juanp\",\"password\":\"password123\",\"status\":true}"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.email").value("juan_updated@example.com"));
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.email").value("juan_updated@example.com"))
+                .andExpect(jsonPath("$.password").doesNotExist());
 
         System.out.println("UNIT TEST: testUpdateUser COMPLETED successfully.");
     }
 
+    /**
+     * Test to update a user with a weak ETag.
+     * 
+     * This test verifies that a PUT on the /user/{id} endpoint with a weak ETag
+     * in If-Match is rejected with 412, as If-Match requires a strong match.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testUpdateUserWeakETag() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testUpdateUserWeakETag...");
+
+        mockMvc.perform(put("/user/1")
+                .header("If-Match", "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Juan\",\"dni\":\"12345678A\",\"email\":\"juan@example.com\",\"nickName\":\"juanp\",\"password\":\"password123\",\"status\":true}"))
+                .andExpect(status().isPreconditionFailed());
+        verify(userService, never()).update(any(User.class), any());
+
+        System.out.println("UNIT TEST: testUpdateUserWeakETag COMPLETED successfully.");
+    }
+
+    /**
+     * Test to partially update an existing user.
+     * 
+     * This test verifies that a PATCH on the /user/{id} endpoint returns 204 when
+     * the user was updated.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testPatchUser() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testPatchUser...");
+
+        when(userService.patch(eq(1), any(UserPatch.class))).thenReturn(true);
+
+        mockMvc.perform(patch("/user/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":false}"))
+                .andExpect(status().isNoContent());
+
+        System.out.println("UNIT TEST: testPatchUser COMPLETED successfully.");
+    }
+
+    /**
+     * Test to partially update a user that does not exist.
+     * 
+     * This test verifies that a PATCH on the /user/{id} endpoint returns 404 when
+     * no user was updated.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testPatchUserNotFound() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testPatchUserNotFound...");
+
+        when(userService.patch(eq(99), any(UserPatch.class))).thenReturn(false);
+
+        mockMvc.perform(patch("/user/99")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"nobody@example.com\"}"))
+                .andExpect(status().isNotFound());
+
+        System.out.println("UNIT TEST: testPatchUserNotFound COMPLETED successfully.");
+    }
+
     /**
      * Test to retrieve a user by ID.
      * 
@@ -139,22 +332,49 @@ public class UserControllerTest {
         System.out.println("-------------------------------------------------");
         System.out.println("UNIT TEST: Running testGetUserById...");
 
-        User user = new User("Juan", "Pérez", "12345678A","28/10/2012", "juan@example.com", "juanp", "password123", true);
+        UserSummary user = new UserSummary(1, "Juan", "Pérez", "juanp", true, 3);
 
         when(userService.getId(1)).thenReturn(Optional.of(user));
 
         mockMvc.perform(get("/user/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name").value("Juan"));
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.name").value("Juan"))
+                .andExpect(jsonPath("$.password").doesNotExist());
 
         System.out.println("UNIT TEST: testGetUserById COMPLETED successfully.");
     }
 
+    /**
+     * Test to retrieve an unchanged user with a conditional GET.
+     * 
+     * This test verifies that the /user/{id} endpoint returns 304 without a body
+     * when If-None-Match holds the current ETag of the user.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testGetUserByIdNotModified() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetUserByIdNotModified...");
+
+        UserSummary user = new UserSummary(1, "Juan", "Pérez", "juanp", true, 3);
+
+        when(userService.getId(1)).thenReturn(Optional.of(user));
+
+        mockMvc.perform(get("/user/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        System.out.println("UNIT TEST: testGetUserByIdNotModified COMPLETED successfully.");
+    }
+
     /**
      * Test to authenticate a user.
      * 
      * This test verifies that a user can log in successfully via the /user/login
-     * endpoint, checking that the response indicates valid credentials.
+     * endpoint, checking that the response indicates valid credentials and
+     * carries a session token.
      * 
      * @throws Exception if an error occurs during the request.
      */
@@ -165,17 +385,46 @@ public class UserControllerTest {
 
         String identifier = "juanp";
         String password = "password123";
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "validPassword");
+        UserSummary user = new UserSummary(1, "Juan", "Pérez", identifier, true, 0);
 
-        when(userService.login(identifier, password)).thenReturn("validPassword");
+        when(userService.login(identifier, password)).thenReturn(Optional.of(user));
+        when(sessionTokenService.issue(user))
+                .thenReturn(new SessionToken("local.payload.signature", Instant.parse("2024-01-01T00:30:00Z")));
 
         mockMvc.perform(post("/user/login")
                 .param("identifier", identifier)
                 .param("password", password))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.status").value("validPassword"));
+                .andExpect(jsonPath("$.status").value("validPassword"))
+                .andExpect(jsonPath("$.token").value("local.payload.signature"))
+                .andExpect(jsonPath("$.expiresAt").value("2024-01-01T00:30:00Z"));
         
         System.out.println("UNIT TEST: testAuthenticateUser COMPLETED successfully.");
     }
+
+    /**
+     * Test to read the session of the caller.
+     * 
+     * This test verifies that the /user/me endpoint returns the claims set by
+     * the session token filter, and 401 when no token was sent.
+     * 
+     * @throws Exception if an error occurs during the request.
+     */
+    @Test
+    void testGetSession() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetSession...");
+
+        SessionClaims claims = new SessionClaims("abc", 1, true, Instant.parse("2024-01-01T00:30:00Z"));
+
+        mockMvc.perform(get("/user/me").requestAttr(SessionTokenFilter.CLAIMS_ATTRIBUTE, claims))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.status").value(true));
+
+        mockMvc.perform(get("/user/me"))
+                .andExpect(status().isUnauthorized());
+
+        System.out.println("UNIT TEST: testGetSession COMPLETED successfully.");
+    }
 }
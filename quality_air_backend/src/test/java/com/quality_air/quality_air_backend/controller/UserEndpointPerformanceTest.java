@@ -0,0 +1,327 @@
+package com.quality_air.quality_air_backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Performance regression tests for the UserController endpoints.
+ *
+ * The application runs in-process against an embedded H2 database in MySQL
+ * mode. Each endpoint must issue exactly the expected number of SQL
+ * statements. A change that adds a query, such as an N+1 select or an extra
+ * round trip on login, fails the build. The bytes allocated on the request
+ * thread are reported for every endpoint and checked against fixed bounds.
+ * As they vary between JDKs, the default build allows twice the bounds, and
+ * the Maven profile "allocation" checks the bounds themselves.
+ *
+ * Statements are counted as Hibernate prepares them, so a JDBC batch counts
+ * once. The second-level cache is disabled, so PUT reads the user it updates
+ * from the database. Reads of the identifier sequence are not counted: one is
+ * shared by every 50 inserts, so whether a given insert pays for it depends
+ * on the inserts before it. Allocation is read from the thread allocation
+ * counter of the JVM and is the median of several requests after a warm-up,
+ * so one-off class loading and JIT work are not counted. The bounds leave
+ * about twice the measured allocation as headroom.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.quality_air.quality_air_backend.controller.UserEndpointPerformanceTest$StatementCounter",
+        "sql.trace.sample-rate=0",
+        "login.throttle.identifier.limit=100000",
+        "login.throttle.ip.limit=100000" })
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UserEndpointPerformanceTest {
+
+    private static final int WARMUP_REQUESTS = 20;
+    private static final int MEASURED_REQUESTS = 21;
+
+    /**
+     * Number of users seeded before the tests, more than one page of GET /user.
+     */
+    private static final int USERS = 60;
+
+    /**
+     * Factor applied to the allocation bounds: 1 with the Maven profile
+     * "allocation", which sets {@code perf.allocation-bounds}, and 2 otherwise.
+     */
+    private static final long ALLOCATION_TOLERANCE = Boolean.getBoolean("perf.allocation-bounds") ? 1 : 2;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${user.batch.max-size}")
+    private int maxBatchSize;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * ID of a seeded user.
+     */
+    private int userId;
+
+    /**
+     * Cost of one request to an endpoint.
+     *
+     * @param statements the number of SQL statements issued.
+     * @param bytes      the bytes allocated on the request thread.
+     */
+    private record Cost(long statements, long bytes) {
+    }
+
+    /**
+     * Seeds the users read by the tests, in batches of the maximum size.
+     */
+    @BeforeAll
+    public void seed() throws Exception {
+        for (int from = 0; from < USERS; from += maxBatchSize) {
+            StringBuilder batch = new StringBuilder("[");
+            for (int i = from; i < Math.min(from + maxBatchSize, USERS); i++) {
+                batch.append(i == from ? "" : ",").append(userJson("seed" + i));
+            }
+            String results = mockMvc.perform(post("/user/batch").contentType(MediaType.APPLICATION_JSON)
+                    .content(batch.append(']').toString())).andReturn().getResponse().getContentAsString();
+            if (from == 0) {
+                userId = objectMapper.readTree(results).get(0).get("id").asInt();
+            }
+        }
+    }
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    public void testGetAll() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetAll...");
+        Cost cost = measure(i -> get("/user"));
+        assertCost("GET /user", cost, 1, 300_000);
+        System.out.println("UNIT TEST: testGetAll COMPLETED successfully.");
+    }
+
+    @Test
+    public void testGetAllNotModified() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetAllNotModified...");
+        String etag = mockMvc.perform(get("/user")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Cost cost = measure(i -> get("/user").header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertCost("GET /user (304)", cost, 1, 250_000);
+        System.out.println("UNIT TEST: testGetAllNotModified COMPLETED successfully.");
+    }
+
+    @Test
+    public void testGetId() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testGetId...");
+        Cost miss = measure(i -> {
+            clearCaches();
+            return get("/user/{id}", userId);
+        });
+        assertCost("GET /user/{id} (cache miss)", miss, 1, 250_000);
+        Cost hit = measure(i -> get("/user/{id}", userId));
+        assertCost("GET /user/{id} (cache hit)", hit, 0, 200_000);
+        System.out.println("UNIT TEST: testGetId COMPLETED successfully.");
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testInsert...");
+        Cost cost = measure(i -> post("/user").contentType(MediaType.APPLICATION_JSON)
+                .content(userJson("insert" + sequence.incrementAndGet())));
+        assertCost("POST /user", cost, 1, 4_000_000);
+        System.out.println("UNIT TEST: testInsert COMPLETED successfully.");
+    }
+
+    @Test
+    public void testInsertBatch() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testInsertBatch...");
+        Cost cost = measure(i -> {
+            String batch = "[" + userJson("batch" + sequence.incrementAndGet()) + ","
+                    + userJson("batch" + sequence.incrementAndGet()) + "]";
+            return post("/user/batch").contentType(MediaType.APPLICATION_JSON).content(batch);
+        });
+        assertCost("POST /user/batch", cost, 1, 8_000_000);
+        System.out.println("UNIT TEST: testInsertBatch COMPLETED successfully.");
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testUpdate...");
+        Cost cost = measure(i -> put("/user/{id}", userId).contentType(MediaType.APPLICATION_JSON)
+                .content(userJson("seed0")));
+        assertCost("PUT /user/{id}", cost, 2, 4_000_000);
+        System.out.println("UNIT TEST: testUpdate COMPLETED successfully.");
+    }
+
+    @Test
+    public void testPatch() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testPatch...");
+        Cost cost = measure(i -> patch("/user/{id}", userId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Patched" + i + "\"}"));
+        assertCost("PATCH /user/{id}", cost, 1, 300_000);
+        System.out.println("UNIT TEST: testPatch COMPLETED successfully.");
+    }
+
+    @Test
+    public void testLogin() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testLogin...");
+        Cost cost = measure(i -> post("/user/login").param("identifier", "admin").param("password", "admin"));
+        assertCost("POST /user/login", cost, 1, 300_000);
+        System.out.println("UNIT TEST: testLogin COMPLETED successfully.");
+    }
+
+    @Test
+    public void testSession() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testSession...");
+        String token = login();
+        Cost me = measure(i -> get("/user/me").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+        assertCost("GET /user/me", me, 0, 200_000);
+        // A revoked token is rejected, so every logout needs a new one
+        Cost logout = measure(i -> post("/user/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + login()));
+        assertCost("POST /user/logout", logout, 0, 200_000);
+        System.out.println("UNIT TEST: testSession COMPLETED successfully.");
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testExport...");
+        // The body is written on an async thread, so only the statements are checked
+        StatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/user/export")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andReturn();
+        System.out.println("UNIT TEST: GET /user/export statements=" + StatementCounter.STATEMENTS.get());
+        assertThat(StatementCounter.STATEMENTS.get()).as("GET /user/export statements").isEqualTo(1);
+        System.out.println("UNIT TEST: testExport COMPLETED successfully.");
+    }
+
+    /**
+     * Sends requests to an endpoint and measures the cost of each one.
+     *
+     * @param requests builds the request with the given index.
+     * @return the statements issued by one request and the median bytes allocated per request.
+     */
+    private Cost measure(IntFunction<RequestBuilder> requests) throws Exception {
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            send(requests.apply(i));
+        }
+        long[] bytes = new long[MEASURED_REQUESTS];
+        long statements = -1;
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            RequestBuilder request = requests.apply(i);
+            StatementCounter.reset();
+            long before = THREADS.getThreadAllocatedBytes(thread);
+            send(request);
+            bytes[i] = THREADS.getThreadAllocatedBytes(thread) - before;
+            long count = StatementCounter.STATEMENTS.get();
+            if (statements >= 0) {
+                assertThat(count).as("statements per request").isEqualTo(statements);
+            }
+            statements = count;
+        }
+        Arrays.sort(bytes);
+        return new Cost(statements, bytes[MEASURED_REQUESTS / 2]);
+    }
+
+    /**
+     * Logs in as the admin user.
+     *
+     * @return a new session token.
+     */
+    private String login() {
+        try {
+            String response = mockMvc.perform(post("/user/login").param("identifier", "admin").param("password", "admin"))
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readTree(response).get("token").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void send(RequestBuilder request) throws Exception {
+        assertThat(mockMvc.perform(request).andReturn().getResponse().getStatus()).isLessThan(400);
+    }
+
+    private static void assertCost(String endpoint, Cost cost, long statements, long maxBytes) {
+        System.out.println("UNIT TEST: " + endpoint + " statements=" + cost.statements() + " bytes=" + cost.bytes());
+        assertThat(cost.statements()).as(endpoint + " statements").isEqualTo(statements);
+        assertThat(cost.bytes()).as(endpoint + " bytes allocated")
+                .isLessThanOrEqualTo(maxBytes * ALLOCATION_TOLERANCE);
+    }
+
+    private static String userJson(String nickName) {
+        return "{\"name\": \"Name\", \"lastName\": \"LastName\", \"dni\": \"12345678A\", \"date\": \"2012-10-28\", "
+                + "\"email\": \"" + nickName + "@example.com\", \"nickName\": \"" + nickName + "\", "
+                + "\"password\": \"password123\", \"status\": true}";
+    }
+
+    /**
+     * Counts the SQL statements prepared by Hibernate, except reads of the
+     * identifier sequence.
+     */
+    public static final class StatementCounter implements StatementInspector {
+
+        static final AtomicLong STATEMENTS = new AtomicLong();
+
+        static void reset() {
+            STATEMENTS.set(0);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (!sql.contains("next value for")) {
+                STATEMENTS.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}
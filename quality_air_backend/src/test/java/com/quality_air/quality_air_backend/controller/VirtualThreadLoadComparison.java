@@ -0,0 +1,233 @@
+package com.quality_air.quality_air_backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.quality_air.quality_air_backend.QualityAirBackendApplication;
+
+/**
+ * Load comparison of the classic Tomcat thread pool and the virtual-thread
+ * execution mode.
+ *
+ * The application is started twice against an embedded H2 database, once per
+ * mode, and GET /user/{id} is called for random users from 1000 concurrent
+ * connections with the cache disabled. Every query is delayed to simulate a
+ * slow database. The connection pool is made larger than the Tomcat thread
+ * pool in both runs, so the comparison isolates the cap that the request
+ * threads put on concurrency. The delay is long enough for that cap, rather
+ * than the CPU, to limit the classic mode even on a single core.
+ *
+ * This class is not part of the regular test run. It requires Java 21; run it with:
+ * {@code mvn test -Pvirtual-threads -Dtest=VirtualThreadLoadComparison}
+ */
+public class VirtualThreadLoadComparison {
+
+    private static final int USERS = 10_000;
+    private static final int CONNECTIONS = 1_000;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int MEASURED_REQUESTS = 8_000;
+    private static final long QUERY_LATENCY_MS = 1_000;
+    private static final int POOL_SIZE = 400;
+
+    /**
+     * Result of one load run.
+     *
+     * @param throughput the completed requests per second.
+     * @param p50        the median latency, in milliseconds.
+     * @param p99        the 99th percentile latency, in milliseconds.
+     * @param errors     the number of requests that did not return 200.
+     */
+    private record Result(double throughput, long p50, long p99, int errors) {
+    }
+
+    /**
+     * Runs the same load in both modes and compares the throughput.
+     *
+     * The virtual-thread mode must complete more requests per second than the
+     * classic thread pool, without errors.
+     */
+    @Test
+    public void virtualThreadsServeMoreConcurrentRequests() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+        System.out.println("-------------------------------------------------");
+        System.out.println("BENCHMARK: Running virtualThreadsServeMoreConcurrentRequests...");
+
+        Result classic = run(false);
+        Result virtual = run(true);
+        print("classic", classic);
+        print("virtual", virtual);
+
+        assertThat(virtual.errors()).isZero();
+        assertThat(virtual.throughput()).isGreaterThan(classic.throughput());
+        System.out.println("BENCHMARK: virtualThreadsServeMoreConcurrentRequests COMPLETED successfully.");
+    }
+
+    /**
+     * Starts the application in one mode and measures it under load.
+     *
+     * @param virtual whether to run request handling on virtual threads.
+     * @return the measured result.
+     */
+    private Result run(boolean virtual) throws Exception {
+        String name = virtual ? "virtual" : "classic";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QualityAirBackendApplication.class)
+                .profiles(virtual ? new String[] { "h2", "virtual" } : new String[] { "h2" })
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new QueryDelay()))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.url=jdbc:h2:mem:load_" + name
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.datasource.hikari.minimum-idle=" + POOL_SIZE,
+                        "--spring.datasource.hikari.connection-timeout=30000",
+                        "--user.coalesce.timeout=30s",
+                        "--spring.cache.type=none",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN")) {
+            seed(context.getBean(JdbcTemplate.class));
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/user/";
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+            load(client, base, WARMUP_REQUESTS);
+            return load(client, base, MEASURED_REQUESTS);
+        }
+    }
+
+    /**
+     * Sends requests for random users, keeping a fixed number in flight.
+     *
+     * @param client   the HTTP client.
+     * @param base     the base URL of the user endpoint.
+     * @param requests the number of requests to send.
+     * @return the measured result.
+     */
+    private Result load(HttpClient client, String base, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONNECTIONS);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + (ThreadLocalRandom.current().nextInt(USERS) + 2)))
+                    .timeout(Duration.ofSeconds(60)).build();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            if (errors.incrementAndGet() == 1) {
+                                System.out.println("BENCHMARK: first error " + (error != null ? error : response.statusCode()));
+                            }
+                        }
+                        inFlight.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(requests / seconds, latencies[requests / 2] / 1_000_000,
+                latencies[(int) (requests * 0.99)] / 1_000_000, errors.get());
+    }
+
+    /**
+     * Inserts synthetic users after the admin user.
+     *
+     * @param jdbcTemplate the template of the running application.
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>();
+        Date date = Date.valueOf("2012-10-28");
+        for (int i = 2; i < USERS + 2; i++) {
+            rows.add(new Object[] { i, "Name" + i, "LastName" + i, "DNI" + i, date, "user" + i + "@example.com",
+                    "user" + i, "password123", true });
+        }
+        jdbcTemplate.batchUpdate("insert into user (id, name, last_name, dni, date, email, nick_name, password, status, version) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("BENCHMARK: mode=%s connections=%d throughput=%8.0f req/s p50=%5d ms p99=%5d ms errors=%d%n",
+                mode, CONNECTIONS, result.throughput(), result.p50(), result.p99(), result.errors());
+    }
+
+    /**
+     * Wraps the data source so that every query waits as long as a round trip
+     * to a remote database, while holding its pooled connection.
+     */
+    private static final class QueryDelay implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = method.invoke(target, args);
+                return result instanceof Connection connection ? proxy(Connection.class, connection, (c, m, a) -> {
+                    Object statement = m.invoke(c, a);
+                    return statement instanceof PreparedStatement prepared
+                            ? proxy(PreparedStatement.class, prepared, (s, sm, sa) -> {
+                                if (sm.getName().startsWith("execute")) {
+                                    Thread.sleep(QUERY_LATENCY_MS);
+                                }
+                                return sm.invoke(s, sa);
+                            })
+                            : statement;
+                }) : result;
+            });
+        }
+
+        /**
+         * Creates a proxy delegating every call to a target.
+         *
+         * @param type    the interface to proxy.
+         * @param target  the object receiving the calls.
+         * @param handler the handler invoked with the target instead of the proxy.
+         * @return the proxy.
+         */
+        private static <T> T proxy(Class<T> type, T target, TargetHandler handler) {
+            InvocationHandler invocation = (proxy, method, args) -> {
+                try {
+                    return handler.invoke(target, method, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, invocation));
+        }
+
+        @FunctionalInterface
+        private interface TargetHandler {
+            Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.quality_air.quality_air_backend.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests the migration of a database created by the original application.
+ *
+ * Before the application starts, the database gets the user table generated
+ * from the first entity: an auto-increment id, no version column and no
+ * indexes, with the admin user inserted by three earlier starts. The
+ * application must then start with its schema validated, and read, create and
+ * log in users as usual.
+ */
+@SpringBootTest(properties = "sql.trace.sample-rate=0")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class BaselineSchemaMigrationTest {
+
+    private static final String URL = url("baseline");
+
+    /**
+     * ID of the user created by the original application after the admin users.
+     */
+    private static final int EXISTING_USER = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the database of the original application and points the
+     * application to it.
+     */
+    @DynamicPropertySource
+    static void baselineDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            createOriginalSchema(statement);
+            statement.execute("insert into user (date, dni, email, last_name, name, nick_name, password, status) "
+                    + "values (date '2000-01-01', '87654321', 'juan@example.com', 'Pérez', 'Juan', 'juanp', "
+                    + "'secret', true)");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    /**
+     * Test that the migrated schema matches the entity and keeps the users.
+     *
+     * This test verifies that the duplicate admin users are removed, that the
+     * existing users get version 0 and keep being served, and that the unique
+     * indexes are in place.
+     */
+    @Test
+    void testBaselineSchemaIsMigrated() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testBaselineSchemaIsMigrated...");
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user where nick_name = 'admin'", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from user", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select max(version) from user", Long.class)).isZero();
+
+        mockMvc.perform(get("/user/" + EXISTING_USER))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+        mockMvc.perform(post("/user/login").param("identifier", "juanp").param("password", "secret"))
+                .andExpect(status().isOk());
+
+        assertThatThrownBy(() -> jdbcTemplate.update("insert into user (id, date, dni, email, nick_name, password, "
+                + "status, version) values (100, date '2000-01-01', '1', 'juan@example.com', 'other', 'x', true, 0)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        System.out.println("UNIT TEST: testBaselineSchemaIsMigrated COMPLETED successfully.");
+    }
+
+    /**
+     * Test that new users do not reuse the IDs of the existing ones.
+     *
+     * This test verifies that the identifier sequence starts after the users
+     * created by the original application.
+     */
+    @Test
+    void testNewUsersFollowExistingIds() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testNewUsersFollowExistingIds...");
+
+        String created = mockMvc.perform(post("/user").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Ana\", \"lastName\": \"Lopez\", \"dni\": \"98765432B\", \"date\": \"2012-10-28\", "
+                        + "\"email\": \"ana@example.com\", \"nickName\": \"ana\", \"password\": \"password456\", "
+                        + "\"status\": true}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(objectMapper.readTree(created).get("id").asInt()).isGreaterThan(EXISTING_USER);
+        System.out.println("UNIT TEST: testNewUsersFollowExistingIds COMPLETED successfully.");
+    }
+
+    /**
+     * Test that users sharing a login are not deleted by the migration.
+     *
+     * This test verifies that when two real users share an email, the
+     * migration fails with their IDs and leaves every user in place.
+     */
+    @Test
+    void testConflictingUsersFailMigration() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testConflictingUsersFailMigration...");
+        String url = url("conflict");
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                Statement statement = connection.createStatement()) {
+            createOriginalSchema(statement);
+            statement.execute("insert into user (date, dni, email, last_name, name, nick_name, password, status) "
+                    + "values (date '2000-01-01', '87654321', 'juan@example.com', 'Pérez', 'Juan', 'juanp', "
+                    + "'secret', true), (date '2001-01-01', '11223344', 'juan@example.com', 'Gomez', 'Juan', "
+                    + "'juang', 'other', true)");
+        }
+        Flyway flyway = Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true).baselineVersion("0").load();
+
+        assertThatThrownBy(flyway::migrate).isInstanceOf(FlywayException.class)
+                .hasMessageContaining("merge them and migrate again. IDs: 4,5");
+        JdbcTemplate conflict = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+        assertThat(conflict.queryForList("select id from user order by id", Integer.class)).containsExactly(1, 2, 3, 4, 5);
+        System.out.println("UNIT TEST: testConflictingUsersFailMigration COMPLETED successfully.");
+    }
+
+    private static String url(String name) {
+        return "jdbc:h2:mem:" + name + "_" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+    }
+
+    /**
+     * Creates the user table of the original application, with the admin user
+     * inserted by three earlier starts.
+     */
+    private static void createOriginalSchema(Statement statement) throws SQLException {
+        statement.execute("create table user (id integer not null auto_increment, date date not null, "
+                + "dni varchar(255) not null, email varchar(255) not null, last_name varchar(255), "
+                + "name varchar(255), nick_name varchar(255) not null, password varchar(255) not null, "
+                + "status boolean not null, primary key (id))");
+        for (int i = 0; i < 3; i++) {
+            statement.execute("insert into user (date, dni, email, last_name, name, nick_name, password, status) "
+                    + "values (date '2012-10-28', '12345678', 'admin@correo.com', 'Admin', 'Admin', 'admin', "
+                    + "'admin', true)");
+        }
+    }
+}
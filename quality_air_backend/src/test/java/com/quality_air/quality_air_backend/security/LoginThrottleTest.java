@@ -0,0 +1,167 @@
+package com.quality_air.quality_air_backend.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the throttling of login attempts.
+ *
+ * Each test configures its own limits, so the time-based ones only wait a
+ * fraction of a second.
+ */
+public class LoginThrottleTest {
+
+    /**
+     * Test that an identifier is limited regardless of case and spacing.
+     *
+     * This test verifies that the attempts beyond the limit are rejected with
+     * a positive wait, and that other identifiers are not affected.
+     */
+    @Test
+    public void testIdentifierLimit() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testIdentifierLimit...");
+        LoginThrottle throttle = throttle(3, Duration.ofMinutes(1), 100, 1000);
+
+        assertThat(throttle.tryAcquire("juan", "10.0.0.1")).isZero();
+        assertThat(throttle.tryAcquire("Juan", "10.0.0.2")).isZero();
+        assertThat(throttle.tryAcquire(" JUAN ", "10.0.0.3")).isZero();
+        assertThat(throttle.tryAcquire("juan", "10.0.0.4")).isPositive();
+        assertThat(throttle.tryAcquire("ana", "10.0.0.4")).isZero();
+        System.out.println("UNIT TEST: testIdentifierLimit COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a throttled key is allowed again once its bucket refills.
+     *
+     * This test verifies that after waiting the returned time, one more
+     * attempt is allowed.
+     */
+    @Test
+    public void testRefill() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testRefill...");
+        LoginThrottle throttle = throttle(2, Duration.ofMillis(200), 100, 1000);
+
+        assertThat(throttle.tryAcquire("juan", "10.0.0.1")).isZero();
+        assertThat(throttle.tryAcquire("juan", "10.0.0.1")).isZero();
+        long wait = throttle.tryAcquire("juan", "10.0.0.1");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(throttle.tryAcquire("juan", "10.0.0.1")).isZero();
+        assertThat(throttle.tryAcquire("juan", "10.0.0.1")).isPositive();
+        System.out.println("UNIT TEST: testRefill COMPLETED successfully.");
+    }
+
+    /**
+     * Test that refilled buckets are removed from memory.
+     *
+     * This test verifies that the periodic eviction keeps the buckets still
+     * refilling and removes the ones that have fully refilled.
+     */
+    @Test
+    public void testIdleBucketsAreEvicted() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testIdleBucketsAreEvicted...");
+        LoginThrottle throttle = throttle(1, Duration.ofMillis(100), 100, 1000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        throttle.bindTo(registry);
+
+        throttle.tryAcquire("juan", "10.0.0.1");
+        throttle.evictIdle();
+        assertThat(buckets(registry, "identifier")).isEqualTo(1);
+
+        Thread.sleep(150);
+        throttle.evictIdle();
+        assertThat(buckets(registry, "identifier")).isZero();
+        System.out.println("UNIT TEST: testIdleBucketsAreEvicted COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a full table makes room for new clients.
+     *
+     * This test verifies that once the maximum number of buckets is reached,
+     * attempts from new addresses are still allowed and the table stays
+     * within its cap.
+     */
+    @Test
+    public void testFullTableEvictsBuckets() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testFullTableEvictsBuckets...");
+        LoginThrottle throttle = throttle(5, Duration.ofMinutes(1), 1, 10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        throttle.bindTo(registry);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(throttle.tryAcquire(null, "10.0.1." + i)).isZero();
+        }
+        assertThat(buckets(registry, "ip")).isLessThanOrEqualTo(10);
+        System.out.println("UNIT TEST: testFullTableEvictsBuckets COMPLETED successfully.");
+    }
+
+    /**
+     * Test that the filter rejects throttled logins before the controller.
+     *
+     * This test verifies that an attempt over the IP limit gets a 429 error
+     * with a Retry-After header and does not reach the rest of the chain,
+     * while attempts from other addresses go through.
+     */
+    @Test
+    public void testFilterRejectsThrottledAttempts() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testFilterRejectsThrottledAttempts...");
+        LoginThrottleFilter filter = new LoginThrottleFilter(throttle(5, Duration.ofMinutes(1), 1, 1000));
+
+        assertThat(login(filter, "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        MockHttpServletResponse rejected = login(filter, "10.0.0.1");
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(Integer.parseInt(rejected.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(1, 60);
+        assertThat(login(filter, "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+        System.out.println("UNIT TEST: testFilterRejectsThrottledAttempts COMPLETED successfully.");
+    }
+
+    private static LoginThrottle throttle(int identifierLimit, Duration identifierPeriod, int ipLimit,
+            int maxEntries) {
+        LoginThrottle throttle = new LoginThrottle();
+        ReflectionTestUtils.setField(throttle, "identifierLimit", identifierLimit);
+        ReflectionTestUtils.setField(throttle, "identifierPeriod", identifierPeriod);
+        ReflectionTestUtils.setField(throttle, "ipLimit", ipLimit);
+        ReflectionTestUtils.setField(throttle, "ipPeriod", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(throttle, "maxEntries", maxEntries);
+        throttle.init();
+        return throttle;
+    }
+
+    private static double buckets(SimpleMeterRegistry registry, String key) {
+        return registry.get("login.throttle.buckets").tag("key", key).gauge().value();
+    }
+
+    /**
+     * Sends a login attempt through the filter.
+     *
+     * @return the response, with status 200 if the attempt reached the chain.
+     */
+    private static MockHttpServletResponse login(LoginThrottleFilter filter, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/user/login");
+        request.setRemoteAddr(ip);
+        request.setParameter("identifier", "juan");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertThat(chain.getRequest() != null).isEqualTo(response.getStatus() == HttpStatus.OK.value());
+        return response;
+    }
+}
@@ -0,0 +1,114 @@
+package com.quality_air.quality_air_backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Benchmark of the login lookup as the user table grows.
+ *
+ * The table is filled in steps against an embedded H2 database and the login
+ * latency is measured at each size. Since the lookup is a single indexed seek,
+ * the median latency must stay flat regardless of the number of users.
+ * Every user shares one password hashed with the minimum bcrypt cost, so the
+ * verification time stays small and constant.
+ *
+ * This class is not part of the regular test run. Run it with:
+ * {@code mvn test -Dtest=LoginLatencyBenchmark}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "user.password.cost=4")
+@ActiveProfiles("h2")
+public class LoginLatencyBenchmark {
+
+    private static final int[] TABLE_SIZES = { 1_000, 10_000, 100_000 };
+    private static final int WARMUP_LOGINS = 5_000;
+    private static final int MEASURED_LOGINS = 5_000;
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Measures the login latency at each table size.
+     *
+     * The median latency at the largest size must be within three times the
+     * median latency at the smallest size.
+     */
+    @Test
+    public void loginLatencyStaysFlatAsTableGrows() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("BENCHMARK: Running loginLatencyStaysFlatAsTableGrows...");
+
+        long[] medians = new long[TABLE_SIZES.length];
+        int seeded = 0;
+        for (int step = 0; step < TABLE_SIZES.length; step++) {
+            seed(seeded, TABLE_SIZES[step]);
+            seeded = TABLE_SIZES[step];
+
+            measure(seeded, WARMUP_LOGINS);
+            long[] latencies = measure(seeded, MEASURED_LOGINS);
+            Arrays.sort(latencies);
+            medians[step] = latencies[latencies.length / 2];
+            System.out.printf("BENCHMARK: users=%7d p50=%6d us p99=%6d us%n", seeded,
+                    medians[step] / 1_000, latencies[(int) (latencies.length * 0.99)] / 1_000);
+        }
+
+        assertThat(medians[medians.length - 1]).isLessThanOrEqualTo(medians[0] * 3);
+        System.out.println("BENCHMARK: loginLatencyStaysFlatAsTableGrows COMPLETED successfully.");
+    }
+
+    /**
+     * Inserts synthetic users with IDs in the given range.
+     *
+     * @param from the first ID to insert, exclusive.
+     * @param to   the last ID to insert, inclusive.
+     */
+    private void seed(int from, int to) {
+        List<Object[]> rows = new ArrayList<>();
+        Date date = Date.valueOf("2012-10-28");
+        String hash = passwordService.hash(PASSWORD);
+        for (int i = from + 1; i <= to; i++) {
+            rows.add(new Object[] { 1_000_000 + i, "Name" + i, "LastName" + i, "DNI" + i, date,
+                    "user" + i + "@example.com", "user" + i, hash, true });
+        }
+        jdbcTemplate.batchUpdate("insert into user (id, name, last_name, dni, date, email, nick_name, password, status, version) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    /**
+     * Performs logins of random existing users, alternating email and nickname.
+     *
+     * @param users  the number of seeded users.
+     * @param logins the number of logins to perform.
+     * @return the latency of each login, in nanoseconds.
+     */
+    private long[] measure(int users, int logins) {
+        long[] latencies = new long[logins];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < logins; i++) {
+            int user = random.nextInt(users) + 1;
+            String identifier = (i % 2 == 0) ? "user" + user : "user" + user + "@example.com";
+            long start = System.nanoTime();
+            boolean valid = userService.login(identifier, PASSWORD).isPresent();
+            latencies[i] = System.nanoTime() - start;
+            assertThat(valid).isTrue();
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,176 @@
+package com.quality_air.quality_air_backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Unit tests for the hashing and verification of passwords.
+ *
+ * The services use a low bcrypt cost, so hashing takes a few milliseconds.
+ */
+public class PasswordServiceTest {
+
+    /**
+     * Test that passwords are stored as bcrypt hashes and verified against them.
+     *
+     * This test verifies that a hash is salted, that it matches its password
+     * only, and that a password shaped like a hash is hashed as well.
+     */
+    @Test
+    public void testHash() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testHash...");
+        PasswordService passwordService = passwordService(4, 1, 1);
+
+        String hash = passwordService.hash("password123");
+        assertThat(passwordService.isHashed(hash)).isTrue();
+        assertThat(passwordService.hash("password123")).isNotEqualTo(hash);
+        assertThat(passwordService.matches("password123", hash)).isTrue();
+        assertThat(passwordService.matches("password124", hash)).isFalse();
+
+        String rehashed = passwordService.hash(hash);
+        assertThat(rehashed).isNotEqualTo(hash);
+        assertThat(passwordService.matches(hash, rehashed)).isTrue();
+        System.out.println("UNIT TEST: testHash COMPLETED successfully.");
+    }
+
+    /**
+     * Test that legacy plain text passwords are still accepted.
+     *
+     * This test verifies that a plain text password only matches the same
+     * password, including one differing in length, and that it must be hashed
+     * again.
+     */
+    @Test
+    public void testLegacyPlainText() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testLegacyPlainText...");
+        PasswordService passwordService = passwordService(4, 1, 1);
+
+        assertThat(passwordService.isHashed("admin")).isFalse();
+        assertThat(passwordService.matches("admin", "admin")).isTrue();
+        assertThat(passwordService.matches("admim", "admin")).isFalse();
+        assertThat(passwordService.matches("admin1", "admin")).isFalse();
+        assertThat(passwordService.matches("", "admin")).isFalse();
+        assertThat(passwordService.needsRehash("admin")).isTrue();
+        System.out.println("UNIT TEST: testLegacyPlainText COMPLETED successfully.");
+    }
+
+    /**
+     * Test that hashes of a lower cost are hashed again.
+     *
+     * This test verifies that a hash of the current cost is kept, and that it
+     * is upgraded once the cost is raised.
+     */
+    @Test
+    public void testNeedsRehash() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testNeedsRehash...");
+        String hash = passwordService(4, 1, 1).hash("password123");
+
+        assertThat(passwordService(4, 1, 1).needsRehash(hash)).isFalse();
+        assertThat(passwordService(5, 1, 1).needsRehash(hash)).isTrue();
+        System.out.println("UNIT TEST: testNeedsRehash COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a batch of passwords is hashed on the pool.
+     *
+     * This test verifies that each hash matches the password at the same
+     * position, and that every password was hashed by the pool.
+     */
+    @Test
+    public void testHashAll() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testHashAll...");
+        PasswordService passwordService = passwordService(4, 2, 10);
+        ThreadPoolExecutor verifier = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordService, "verifier");
+        long submitted = verifier.getTaskCount();
+        try {
+            List<String> hashes = passwordService.hashAll(List.of("password1", "password2", "password3"));
+
+            assertThat(hashes).hasSize(3);
+            for (int i = 0; i < hashes.size(); i++) {
+                assertThat(passwordService.matches("password" + (i + 1), hashes.get(i))).isTrue();
+            }
+            assertThat(verifier.getTaskCount()).isGreaterThanOrEqualTo(submitted + 3);
+        } finally {
+            passwordService.shutdown();
+        }
+        System.out.println("UNIT TEST: testHashAll COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a login with no user costs a verification.
+     *
+     * This test verifies that the password is verified on the pool against a
+     * hash it does not match.
+     */
+    @Test
+    public void testMatchesNone() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testMatchesNone...");
+        PasswordService passwordService = passwordService(4, 1, 1);
+        ThreadPoolExecutor verifier = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordService, "verifier");
+        try {
+            passwordService.matchesNone("password123");
+            assertThat(verifier.getTaskCount()).isOne();
+        } finally {
+            passwordService.shutdown();
+        }
+        System.out.println("UNIT TEST: testMatchesNone COMPLETED successfully.");
+    }
+
+    /**
+     * Test that logins are rejected when the verification pool is saturated.
+     *
+     * This test verifies that with its thread busy and its queue full, the
+     * pool rejects a verification or a batch of hashes with a 503 error
+     * instead of running it on the calling thread.
+     */
+    @Test
+    public void testSaturatedPoolRejects() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testSaturatedPoolRejects...");
+        PasswordService passwordService = passwordService(4, 1, 1);
+        String hash = passwordService.hash("password123");
+        ExecutorService verifier = (ExecutorService) ReflectionTestUtils.getField(passwordService, "verifier");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            verifier.submit(() -> release.await(5, TimeUnit.SECONDS));
+            verifier.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+            assertThatThrownBy(() -> passwordService.matches("password123", hash))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+            assertThatThrownBy(() -> passwordService.hashAll(List.of("password123")))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            release.countDown();
+            passwordService.shutdown();
+        }
+        System.out.println("UNIT TEST: testSaturatedPoolRejects COMPLETED successfully.");
+    }
+
+    private static PasswordService passwordService(int cost, int verifyThreads, int verifyQueue) {
+        PasswordService passwordService = new PasswordService();
+        ReflectionTestUtils.setField(passwordService, "cost", cost);
+        ReflectionTestUtils.setField(passwordService, "verifyThreads", verifyThreads);
+        ReflectionTestUtils.setField(passwordService, "verifyQueue", verifyQueue);
+        ReflectionTestUtils.setField(passwordService, "verifyTimeoutMillis", 2000L);
+        passwordService.init();
+        return passwordService;
+    }
+}
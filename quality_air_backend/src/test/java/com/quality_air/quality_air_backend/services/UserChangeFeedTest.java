@@ -0,0 +1,188 @@
+package com.quality_air.quality_air_backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quality_air.quality_air_backend.dto.UserChange;
+
+/**
+ * Tests for the change feed served at /user/changes.
+ *
+ * The application runs in-process against an embedded H2 database. Only the
+ * last three changes are buffered, so resuming from an older event requires
+ * a reset.
+ */
+@SpringBootTest(properties = { "sql.trace.sample-rate=0", "user.changes.buffer-size=3" })
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class UserChangeFeedTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    /**
+     * Test that committed creations and updates are pushed to subscribers.
+     *
+     * This test verifies that creating and patching a user sends a CREATED and
+     * an UPDATED event with its ID, and that an update rejected with 412 sends
+     * nothing.
+     *
+     * @throws Exception if an error occurs during the requests.
+     */
+    @Test
+    void testChangesArePushed() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testChangesArePushed...");
+
+        MockHttpServletResponse stream = subscribe(null);
+
+        String created = mockMvc.perform(post("/user").contentType(MediaType.APPLICATION_JSON)
+                .content(userJson("feed1"))).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        int id = objectMapper.readTree(created).get("id").asInt();
+        awaitContent(stream, "{\"type\":\"CREATED\",\"userId\":" + id + "}");
+
+        mockMvc.perform(put("/user/" + id).header(HttpHeaders.IF_MATCH, "\"99\"")
+                .contentType(MediaType.APPLICATION_JSON).content(userJson("feed1")))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/user/" + id).contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Ana\"}"))
+                .andExpect(status().is2xxSuccessful());
+        awaitContent(stream, "{\"type\":\"UPDATED\",\"userId\":" + id + "}");
+
+        assertThat(count(stream.getContentAsString(), "\"UPDATED\"")).isEqualTo(1);
+        System.out.println("UNIT TEST: testChangesArePushed COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a reconnecting client receives the changes it missed.
+     *
+     * This test verifies that subscribing with the ID of a buffered event
+     * replays only the later changes, and that an evicted or unknown ID gets a
+     * reset event instead.
+     *
+     * @throws Exception if an error occurs during the requests.
+     */
+    @Test
+    void testResumeFromLastEventId() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testResumeFromLastEventId...");
+
+        MockHttpServletResponse stream = subscribe(null);
+        userChangeFeed.publish(UserChange.updated(1001));
+        awaitContent(stream, "\"userId\":1001");
+        Matcher lastEventId = EVENT_ID.matcher(stream.getContentAsString());
+        assertThat(lastEventId.find()).isTrue();
+
+        userChangeFeed.publish(UserChange.updated(1002));
+        userChangeFeed.publish(UserChange.updated(1003));
+        MockHttpServletResponse resumed = subscribe(lastEventId.group(1));
+        awaitContent(resumed, "\"userId\":1003");
+        assertThat(resumed.getContentAsString()).contains("\"userId\":1002").doesNotContain("\"userId\":1001");
+
+        userChangeFeed.publish(UserChange.updated(1004));
+        userChangeFeed.publish(UserChange.updated(1005));
+        awaitContent(subscribe(lastEventId.group(1)), "event:" + UserChangeFeed.RESET_EVENT);
+        awaitContent(subscribe("0-1"), "event:" + UserChangeFeed.RESET_EVENT);
+        System.out.println("UNIT TEST: testResumeFromLastEventId COMPLETED successfully.");
+    }
+
+    /**
+     * Test that the number of subscribers and of sender threads is bounded.
+     *
+     * This test verifies that a client subscribing beyond the maximum gets a
+     * 503 error, and that a subscriber whose events cannot be scheduled on the
+     * sender pool is disconnected.
+     */
+    @Test
+    void testSubscribersAreBounded() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testSubscribersAreBounded...");
+
+        UserChangeFeed feed = new UserChangeFeed();
+        ReflectionTestUtils.setField(feed, "bufferSize", 3);
+        ReflectionTestUtils.setField(feed, "subscriberQueue", 3);
+        ReflectionTestUtils.setField(feed, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(feed, "maxSubscribers", 1);
+        feed.init();
+
+        feed.subscribe(null);
+        assertThatThrownBy(() -> feed.subscribe(null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        // A stopped pool rejects every task
+        ((ExecutorService) ReflectionTestUtils.getField(feed, "sender")).shutdown();
+        feed.publish(UserChange.updated(2001));
+        assertThat(feed.subscriberCount()).isZero();
+        System.out.println("UNIT TEST: testSubscribersAreBounded COMPLETED successfully.");
+    }
+
+    /**
+     * Opens the change stream.
+     *
+     * @param lastEventId the ID of the last event received, or null.
+     * @return the response the events are written to.
+     */
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        return mockMvc.perform(lastEventId == null ? get("/user/changes")
+                : get("/user/changes").header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    /**
+     * Waits until the stream contains the given text, as events are written by
+     * the sender task of the subscriber.
+     */
+    private static void awaitContent(MockHttpServletResponse stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!stream.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(stream.getContentAsString()).contains(expected);
+    }
+
+    private static int count(String text, String part) {
+        return text.split(Pattern.quote(part), -1).length - 1;
+    }
+
+    private static String userJson(String key) {
+        return "{\"name\": \"Juan\", \"lastName\": \"Pérez\", \"dni\": \"" + key + "\", \"date\": \"2012-10-28\", "
+                + "\"email\": \"" + key + "@example.com\", \"nickName\": \"" + key
+                + "\", \"password\": \"password123\", \"status\": true}";
+    }
+}
@@ -0,0 +1,130 @@
+package com.quality_air.quality_air_backend.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.quality_air.quality_air_backend.dto.UserChange;
+import com.quality_air.quality_air_backend.entities.User;
+
+/**
+ * Tests for the UserService class.
+ *
+ * The application runs in-process against an embedded H2 database, with the
+ * cache of users by ID enabled.
+ */
+@SpringBootTest(properties = "sql.trace.sample-rate=0")
+@ActiveProfiles("h2")
+@RecordApplicationEvents
+public class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    /**
+     * Test that a password hashed again on login does not leave a stale cached user.
+     *
+     * This test verifies that after a login replaces a legacy plain text
+     * password, the user read by ID has the new version, so its ETag is
+     * accepted by a conditional update, and that the change is published.
+     */
+    @Test
+    void testLoginRehashEvictsCachedUser() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testLoginRehashEvictsCachedUser...");
+
+        User user = userService.insert(new User("Juan", "Pérez", "12345678A", "06/09/2024", "rehash@example.com",
+                "rehash", "password123", true));
+        jdbcTemplate.update("update user set password = 'legacy' where id = ?", user.getId());
+        long version = userService.getId(user.getId()).orElseThrow().version();
+
+        assertThat(userService.login("rehash", "legacy")).isPresent();
+
+        assertThat(userService.getId(user.getId()).orElseThrow().version()).isEqualTo(version + 1);
+        assertThat(events.stream(UserChange.class)).contains(UserChange.updated(user.getId()));
+        System.out.println("UNIT TEST: testLoginRehashEvictsCachedUser COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a password shaped like a bcrypt hash is hashed as well.
+     *
+     * This test verifies that a client cannot choose the stored hash: the
+     * value it sends is the password, not the hash of another one.
+     */
+    @Test
+    void testClientHashIsNotStored() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testClientHashIsNotStored...");
+
+        String chosen = passwordService.hash("secret");
+        User user = userService.insert(new User("Luis", "Gomez", "11223344C", "06/09/2024", "hash@example.com",
+                "hash", chosen, true));
+
+        assertThat(jdbcTemplate.queryForObject("select password from user where id = ?", String.class,
+                user.getId())).isNotEqualTo(chosen);
+        assertThat(userService.login("hash", "secret")).isEmpty();
+        assertThat(userService.login("hash", chosen)).isPresent();
+        System.out.println("UNIT TEST: testClientHashIsNotStored COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a login with an unknown identifier costs a verification.
+     *
+     * This test verifies that the password is verified on the pool even when
+     * no user has the identifier, as it is for a known user with a wrong
+     * password.
+     */
+    @Test
+    void testUnknownIdentifierIsVerified() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testUnknownIdentifierIsVerified...");
+        ThreadPoolExecutor verifier = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordService, "verifier");
+
+        long submitted = verifier.getTaskCount();
+        assertThat(userService.login("nobody@example.com", "password123")).isEmpty();
+        assertThat(verifier.getTaskCount()).isEqualTo(submitted + 1);
+        System.out.println("UNIT TEST: testUnknownIdentifierIsVerified COMPLETED successfully.");
+    }
+
+    /**
+     * Test that the export does not disclose passwords.
+     *
+     * This test verifies that every exported user carries its public columns
+     * but not its password hash.
+     */
+    @Test
+    void testExportOmitsPasswords() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testExportOmitsPasswords...");
+
+        userService.insert(new User("Ana", "Lopez", "98765432B", "06/09/2024", "export@example.com", "export",
+                "password456", true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userService.export(out);
+
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson).contains("\"email\":\"export@example.com\"").contains("\"dni\":\"98765432B\"")
+                .doesNotContain("password").doesNotContain("$2a$");
+        System.out.println("UNIT TEST: testExportOmitsPasswords COMPLETED successfully.");
+    }
+}
@@ -0,0 +1,39 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.entities.User;
+
+/**
+ * Unit tests for the reflection hints of the ahead-of-time processed application.
+ */
+public class AppRuntimeHintsTest {
+
+    /**
+     * Test that the User accessors generated by Lombok and the DTO constructors
+     * used by JPQL are available through reflection.
+     */
+    @Test
+    public void testRegisterHints() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testRegisterHints...");
+        RuntimeHints hints = new RuntimeHints();
+        new AppRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(User.class.getMethod("getNickName"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(User.class.getMethod("setNickName", String.class)))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(User.class.getConstructor())).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(UserSummary.class.getConstructors()[0]))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(org.hibernate.proxy.HibernateProxy.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("META-INF/resources/webjars/swagger-ui/index.html"))
+                .accepts(hints);
+        System.out.println("UNIT TEST: testRegisterHints COMPLETED successfully.");
+    }
+}
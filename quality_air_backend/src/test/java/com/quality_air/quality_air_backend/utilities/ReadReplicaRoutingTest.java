@@ -0,0 +1,156 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.quality_air.quality_air_backend.dto.UserSummary;
+import com.quality_air.quality_air_backend.entities.User;
+import com.quality_air.quality_air_backend.services.UserService;
+
+/**
+ * Tests for the routing of reads between the primary and a read replica.
+ * 
+ * Two embedded H2 databases stand in for the primary and the replica. The
+ * replica holds a single user that the primary does not have, so each read
+ * shows which database served it.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replicas[0].url=" + ReadReplicaRoutingTest.REPLICA_URL + ";IFEXISTS=TRUE",
+        "app.datasource.replicas[0].username=sa",
+        "app.datasource.replicas[0].password=",
+        "app.datasource.read-your-writes-window=1m" })
+@ActiveProfiles("h2")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+    static {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL + ";DB_CLOSE_DELAY=-1", "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("create table user (id integer primary key, date date, dni varchar(255), "
+                    + "email varchar(255), last_name varchar(255), name varchar(255), nick_name varchar(255), "
+                    + "password varchar(255), status boolean not null, version bigint not null)");
+            statement.execute("insert into user values (1000, date '2012-10-28', 'R1', 'replica@example.com', "
+                    + "'Replica', 'Replica', 'replica', '" + new BCryptPasswordEncoder(10).encode("replica123")
+                    + "', true, 0)");
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Test that read-only reads are served by the replica.
+     */
+    @Test
+    @Order(1)
+    void testReadsGoToReplica() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testReadsGoToReplica...");
+
+        callAs("10.0.0.1");
+        assertThat(userService.getPage(null, 10).items()).extracting(UserSummary::nickName).containsExactly("replica");
+
+        System.out.println("UNIT TEST: testReadsGoToReplica COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a caller reads from the primary after its own write, while
+     * other callers keep reading from the replica.
+     */
+    @Test
+    @Order(2)
+    void testReadYourWrites() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testReadYourWrites...");
+
+        callAs("10.0.0.2");
+        User user = new User("Ana", "Lopez", "87654321B", "28/10/2012", "ana@example.com", "ana", "password123", true);
+        userService.insert(user);
+        assertThat(userService.getPage(null, 10).items()).extracting(UserSummary::nickName).contains("admin", "ana");
+
+        callAs("10.0.0.3");
+        assertThat(userService.getPage(null, 10).items()).extracting(UserSummary::nickName).containsExactly("replica");
+
+        System.out.println("UNIT TEST: testReadYourWrites COMPLETED successfully.");
+    }
+
+    /**
+     * Test that logins are served by the replica and do not count as writes.
+     * 
+     * This test verifies that the user found only on the replica can log in,
+     * and that neither the login nor a cache fill read from the primary sends
+     * the next reads of the caller to the primary.
+     */
+    @Test
+    @Order(3)
+    void testLoginGoesToReplica() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testLoginGoesToReplica...");
+
+        callAs("10.0.0.5");
+        assertThat(userService.login("replica@example.com", "replica123")).isPresent();
+        assertThat(userService.login("replica", "wrong")).isEmpty();
+        assertThat(userService.getId(1000)).isEmpty();
+        assertThat(userService.getPage(null, 10).items()).extracting(UserSummary::nickName).containsExactly("replica");
+
+        System.out.println("UNIT TEST: testLoginGoesToReplica COMPLETED successfully.");
+    }
+
+    /**
+     * Test that reads fail over to the primary when the replica goes down.
+     */
+    @Test
+    @Order(4)
+    void testFailoverToPrimary() throws SQLException, InterruptedException {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testFailoverToPrimary...");
+
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        // Let the pooled replica connections age past the validation bypass window
+        Thread.sleep(1_000);
+        callAs("10.0.0.4");
+        assertThat(userService.getPage(null, 10).items()).extracting(UserSummary::nickName).contains("admin");
+
+        System.out.println("UNIT TEST: testFailoverToPrimary COMPLETED successfully.");
+    }
+
+    /**
+     * Simulates a request from the given client address.
+     * 
+     * @param address the client address.
+     */
+    private static void callAs(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
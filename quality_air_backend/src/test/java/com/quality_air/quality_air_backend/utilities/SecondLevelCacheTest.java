@@ -0,0 +1,185 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.OptionalLong;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.quality_air.quality_air_backend.entities.User;
+import com.quality_air.quality_air_backend.repo.UserRepo;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests for the Hibernate second-level and query cache of the "l2cache" profile.
+ *
+ * The application runs in-process against an embedded H2 database. Each
+ * repository call runs in its own session, so entities are read from the
+ * second-level cache rather than from the persistence context.
+ */
+@SpringBootTest(properties = { "sql.trace.sample-rate=0", "l2cache.max-entries=100" })
+@ActiveProfiles({ "h2", "l2cache" })
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepo userrepo;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SecondLevelCacheConfig secondLevelCacheConfig;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void resetStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Test that the user region is the configured one.
+     *
+     * This test verifies that Hibernate stores users in the bounded region
+     * created by the configuration instead of creating its own.
+     */
+    @Test
+    public void testUserRegionIsConfigured() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testUserRegionIsConfigured...");
+
+        userrepo.findById(userrepo.save(newUser("region")).getId());
+
+        Cache<Object, Object> region = hibernateCacheManager.getCache(User.CACHE_REGION);
+        @SuppressWarnings("unchecked")
+        CaffeineConfiguration<Object, Object> configuration = region.getConfiguration(CaffeineConfiguration.class);
+        assertThat(configuration.getMaximumSize()).isEqualTo(OptionalLong.of(100));
+        assertThat(region.iterator().hasNext()).isTrue();
+        System.out.println("UNIT TEST: testUserRegionIsConfigured COMPLETED successfully.");
+    }
+
+    /**
+     * Test that users are read from the cache and refreshed after an update.
+     *
+     * This test verifies that a second read of a user is a cache hit, and that
+     * after an update the cache returns the new data.
+     */
+    @Test
+    public void testEntityHitsAndUpdate() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testEntityHitsAndUpdate...");
+        User user = userrepo.save(newUser("entity"));
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(User.CACHE_REGION);
+
+        userrepo.findById(user.getId());
+        long hits = region.getHitCount();
+        userrepo.findById(user.getId());
+        assertThat(region.getHitCount()).isEqualTo(hits + 1);
+
+        User found = userrepo.findById(user.getId()).orElseThrow();
+        found.setName("Updated");
+        userrepo.save(found);
+        User updated = userrepo.findById(user.getId()).orElseThrow();
+        assertThat(updated.getName()).isEqualTo("Updated");
+        assertThat(updated.getVersion()).isEqualTo(found.getVersion() + 1);
+        System.out.println("UNIT TEST: testEntityHitsAndUpdate COMPLETED successfully.");
+    }
+
+    /**
+     * Test that the active users query is cached until a user changes.
+     *
+     * This test verifies that repeating the query is a query cache hit, and
+     * that inserting a user invalidates it so the new user is returned.
+     */
+    @Test
+    public void testQueryCacheIsInvalidated() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testQueryCacheIsInvalidated...");
+
+        userrepo.findByStatus();
+        long hits = statistics.getQueryCacheHitCount();
+        userrepo.findByStatus();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+
+        User user = userrepo.save(newUser("query"));
+        assertThat(userrepo.findByStatus()).anyMatch(summary -> summary.id() == user.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+        System.out.println("UNIT TEST: testQueryCacheIsInvalidated COMPLETED successfully.");
+    }
+
+    /**
+     * Test that each application context gets its own cache manager.
+     *
+     * This test verifies that the regions can be created again while another
+     * context still holds its own.
+     */
+    @Test
+    public void testCacheManagerPerContext() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testCacheManagerPerContext...");
+        SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+        ReflectionTestUtils.setField(config, "maxEntries", 100L);
+
+        try (CacheManager other = config.hibernateCacheManager()) {
+            assertThat(other).isNotSameAs(hibernateCacheManager);
+            assertThat(other.getCache(User.CACHE_REGION)).isNotNull();
+            assertThat(hibernateCacheManager.isClosed()).isFalse();
+        }
+        System.out.println("UNIT TEST: testCacheManagerPerContext COMPLETED successfully.");
+    }
+
+    /**
+     * Test that the logged statistics report the hit ratios and the cached users.
+     *
+     * This test verifies that the ratio is computed from the hits and misses,
+     * and that the number of cached users is read from the region.
+     */
+    @Test
+    public void testStatisticsAreLogged() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testStatisticsAreLogged...");
+        assertThat(SecondLevelCacheConfig.hitRatio(0, 0)).isEqualTo("n/a");
+        assertThat(SecondLevelCacheConfig.hitRatio(3, 1)).isEqualTo("75.0%");
+
+        userrepo.findById(userrepo.save(newUser("statistics")).getId());
+        Logger logger = (Logger) LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            secondLevelCacheConfig.logStatistics();
+        } finally {
+            logger.detachAppender(appender);
+        }
+        String thread = Thread.currentThread().getName();
+        assertThat(appender.list).filteredOn(event -> event.getThreadName().equals(thread)).singleElement().extracting(ILoggingEvent::getFormattedMessage).asString()
+                .contains("user hit ratio=", "query cache hit ratio=").doesNotContain("entries=-")
+                .doesNotContain("entries=0)");
+        System.out.println("UNIT TEST: testStatisticsAreLogged COMPLETED successfully.");
+    }
+
+    private static User newUser(String key) {
+        return new User("Juan", "Pérez", key, "06/09/2024", key + "@example.com", key, "password123", true);
+    }
+}
@@ -0,0 +1,191 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Unit tests for the coalescing of concurrent loads.
+ *
+ * Each test starts a leader whose load blocks until released, so that the
+ * other callers arrive while it is in progress.
+ */
+public class SingleFlightTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /**
+     * Test that concurrent callers share the result of a single load.
+     *
+     * This test verifies that a caller arriving during a load receives its
+     * value without running the loader, and that the key is removed once the
+     * load succeeds.
+     */
+    @Test
+    public void testConcurrentCallersShareLoad() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testConcurrentCallersShareLoad...");
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(TIMEOUT_SECONDS));
+        Leader leader = new Leader(flight, () -> "value");
+
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> follower = joinAsync(flight, () -> "other" + loads.incrementAndGet());
+        leader.release();
+
+        assertThat(leader.result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(follower.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(loads).hasValue(0);
+        assertThat(flight.inFlight()).isZero();
+        System.out.println("UNIT TEST: testConcurrentCallersShareLoad COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a failed load is reported to every waiting caller.
+     *
+     * This test verifies that the waiting callers receive the exception
+     * thrown by the loader, and that the key is removed so the next caller
+     * loads again.
+     */
+    @Test
+    public void testFailureIsPropagatedToWaiters() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testFailureIsPropagatedToWaiters...");
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(TIMEOUT_SECONDS));
+        IllegalStateException failure = new IllegalStateException("database down");
+        Leader leader = new Leader(flight, () -> {
+            throw failure;
+        });
+
+        CompletableFuture<String> follower = joinAsync(flight, () -> "other");
+        leader.release();
+
+        assertThat(leader.result).failsWithin(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class).withCause(failure);
+        assertThat(follower).failsWithin(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class).withCause(failure);
+        assertThat(flight.inFlight()).isZero();
+        assertThat(flight.load("key", () -> "retried")).isEqualTo("retried");
+        System.out.println("UNIT TEST: testFailureIsPropagatedToWaiters COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a caller stops waiting for a slow load.
+     *
+     * This test verifies that a caller waiting longer than the timeout gets a
+     * 503 error, while the load itself completes for its leader.
+     */
+    @Test
+    public void testWaiterTimesOut() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testWaiterTimesOut...");
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+        Leader leader = new Leader(flight, () -> "value");
+
+        assertThatThrownBy(() -> flight.load("key", () -> "other"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        leader.release();
+
+        assertThat(leader.result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(flight.inFlight()).isZero();
+        System.out.println("UNIT TEST: testWaiterTimesOut COMPLETED successfully.");
+    }
+
+    /**
+     * Test that a load started before a write is not shared after it.
+     *
+     * This test verifies that a caller arriving after an invalidation runs its
+     * own load instead of receiving the value read before the write, and that
+     * the next callers share the new load.
+     */
+    @Test
+    public void testInvalidatedLoadIsNotJoined() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testInvalidatedLoadIsNotJoined...");
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(TIMEOUT_SECONDS));
+        Leader before = new Leader(flight, () -> "before");
+
+        flight.invalidate();
+        Leader after = new Leader(flight, () -> "after");
+        CompletableFuture<String> follower = joinAsync(flight, () -> "other");
+        before.release();
+        assertThat(before.result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(flight.inFlight()).isOne();
+        after.release();
+
+        assertThat(after.result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("after");
+        assertThat(follower.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("after");
+        assertThat(flight.inFlight()).isZero();
+        System.out.println("UNIT TEST: testInvalidatedLoadIsNotJoined COMPLETED successfully.");
+    }
+
+    /**
+     * Calls the group from another thread and returns once the call waits for
+     * the load in progress.
+     */
+    private static CompletableFuture<String> joinAsync(SingleFlight<String, String> flight,
+            Supplier<String> loader) throws InterruptedException {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(flight.load("key", loader));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (thread.getState() != Thread.State.TIMED_WAITING && !result.isDone() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return result;
+    }
+
+    /**
+     * Caller running a load of "key" on its own thread, blocked until released.
+     */
+    private static final class Leader {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Leader(SingleFlight<String, String> flight, Supplier<String> loader) throws InterruptedException {
+            new Thread(() -> {
+                try {
+                    result.complete(flight.load("key", () -> {
+                        started.countDown();
+                        await(released);
+                        return loader.get();
+                    }));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }).start();
+            assertThat(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        private static void await(CountDownLatch latch) {
+            try {
+                latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
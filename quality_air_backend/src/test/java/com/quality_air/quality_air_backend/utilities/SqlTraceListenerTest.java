@@ -0,0 +1,194 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.quality_air.quality_air_backend.entities.User;
+import com.quality_air.quality_air_backend.services.UserService;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+
+/**
+ * Tests for the sampled logging of SQL statements.
+ *
+ * The events of the {@code sql.trace} logger are captured in memory. The
+ * application runs in-process against an embedded H2 database with every
+ * statement sampled, and the other tests call a listener of their own.
+ */
+@SpringBootTest(properties = "sql.trace.sample-rate=1")
+@ActiveProfiles("h2")
+public class SqlTraceListenerTest {
+
+    private static final long NEVER_SLOW = Long.MAX_VALUE;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("sql.trace");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void captureEvents() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void releaseEvents() {
+        logger.detachAppender(appender);
+        appender.stop();
+    }
+
+    /**
+     * Test that fast statements are logged with the sample rate.
+     *
+     * This test verifies that no statement is logged with a rate of 0, and
+     * that every statement is logged, as not slow, with a rate of 1.
+     */
+    @Test
+    public void testSampling() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testSampling...");
+
+        for (int i = 0; i < 100; i++) {
+            execute(new SqlTraceListener(0, NEVER_SLOW, false), 1);
+        }
+        assertThat(appender.list).isEmpty();
+
+        for (int i = 0; i < 100; i++) {
+            execute(new SqlTraceListener(1, NEVER_SLOW, false), 1);
+        }
+        assertThat(appender.list).hasSize(100).allSatisfy(event -> assertThat(fields(event))
+                .containsEntry("slow", false).containsEntry("sql", "select 1").doesNotContainKey("parameters"));
+        System.out.println("UNIT TEST: testSampling COMPLETED successfully.");
+    }
+
+    /**
+     * Test that slow statements are always logged.
+     *
+     * This test verifies that with sampling off, a statement is logged from
+     * the threshold on, and marked as slow.
+     */
+    @Test
+    public void testSlowThreshold() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testSlowThreshold...");
+        SqlTraceListener listener = new SqlTraceListener(0, 100, false);
+
+        execute(listener, 99);
+        assertThat(appender.list).isEmpty();
+
+        execute(listener, 100);
+        execute(listener, 250);
+        assertThat(appender.list).extracting(SqlTraceListenerTest::fields)
+                .extracting(fields -> fields.get("elapsed_ms"), fields -> fields.get("slow"))
+                .containsExactly(tuple(100L, true), tuple(250L, true));
+        System.out.println("UNIT TEST: testSlowThreshold COMPLETED successfully.");
+    }
+
+    /**
+     * Test that the time spent binding parameters is logged.
+     *
+     * This test verifies that only the parameter setters are timed, and that
+     * the time is reset once reported with a statement.
+     */
+    @Test
+    public void testBindTime() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testBindTime...");
+        SqlTraceListener listener = new SqlTraceListener(1, NEVER_SLOW, false);
+        PreparedStatement statement = mock(PreparedStatement.class);
+
+        call(listener, statement, PreparedStatement.class.getMethod("setString", int.class, String.class), 5);
+        call(listener, statement, PreparedStatement.class.getMethod("setFetchSize", int.class), 50);
+        execute(listener, 1);
+        execute(listener, 1);
+
+        assertThat(appender.list).extracting(event -> (Long) fields(event).get("bind_us"))
+                .satisfiesExactly(
+                        bind -> assertThat(bind).isBetween(5_000L, 50_000L),
+                        bind -> assertThat(bind).isZero());
+        System.out.println("UNIT TEST: testBindTime COMPLETED successfully.");
+    }
+
+    /**
+     * Test that statements are attributed to the service method issuing them.
+     *
+     * This test verifies that the statements of an insert are logged with the
+     * public service method, and that a statement issued outside the services
+     * has no origin.
+     */
+    @Test
+    public void testOrigin() {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testOrigin...");
+
+        userService.insert(new User("Juan", "Pérez", "12345678A", "06/09/2024", "trace@example.com", "trace",
+                "password123", true));
+        assertThat(appender.list).isNotEmpty().allSatisfy(
+                event -> assertThat(fields(event)).containsEntry("origin", "UserService.insert"));
+
+        appender.list.clear();
+        jdbcTemplate.queryForObject("select count(*) from user", Long.class);
+        assertThat(appender.list).singleElement()
+                .satisfies(event -> assertThat(fields(event)).containsEntry("origin", null));
+        System.out.println("UNIT TEST: testOrigin COMPLETED successfully.");
+    }
+
+    /**
+     * Reports an executed statement to the listener.
+     */
+    private static void execute(SqlTraceListener listener, long elapsedMillis) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setElapsedTime(elapsedMillis);
+        execInfo.setStatementType(StatementType.PREPARED);
+        execInfo.setSuccess(true);
+        List<QueryInfo> queries = List.of(new QueryInfo("select 1"));
+        listener.beforeQuery(execInfo, queries);
+        listener.afterQuery(execInfo, queries);
+    }
+
+    /**
+     * Reports a JDBC call taking the given time to the listener.
+     */
+    private static void call(SqlTraceListener listener, PreparedStatement statement, Method method,
+            long millis) throws InterruptedException {
+        MethodExecutionContext context = new MethodExecutionContext();
+        context.setTarget(statement);
+        context.setMethod(method);
+        listener.beforeMethod(context);
+        Thread.sleep(millis);
+        listener.afterMethod(context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> fields(ILoggingEvent event) {
+        return (Map<String, Object>) ReflectionTestUtils.getField(event.getArgumentArray()[1], "map");
+    }
+}
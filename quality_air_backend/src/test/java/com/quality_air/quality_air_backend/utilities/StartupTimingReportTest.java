@@ -0,0 +1,99 @@
+package com.quality_air.quality_air_backend.utilities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Unit tests for the report of the startup timing.
+ *
+ * Each test records nested startup steps that sleep for known times, and
+ * reads the times from the logged report.
+ */
+public class StartupTimingReportTest {
+
+    /**
+     * Test that phases and beans are reported with their self time.
+     *
+     * This test verifies that the time of a phase excludes its nested phase
+     * and bean, that the time of a bean excludes its dependency, and that the
+     * phase times add up to the time of the outermost phase.
+     */
+    @Test
+    public void testSelfTimes() throws Exception {
+        System.out.println("-------------------------------------------------");
+        System.out.println("UNIT TEST: Running testSelfTimes...");
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+
+        StartupStep refresh = startup.start("refresh");
+        Thread.sleep(50);
+        StartupStep beans = startup.start("beans");
+        StartupStep service = startup.start("spring.beans.instantiate").tag("beanName", "service");
+        Thread.sleep(50);
+        StartupStep repository = startup.start("spring.beans.instantiate").tag("beanName", "repository");
+        Thread.sleep(100);
+        repository.end();
+        service.end();
+        beans.end();
+        refresh.end();
+
+        Map<String, Long> times = report(startup);
+        long total = startup.getBufferedTimeline().getEvents().stream()
+                .filter(event -> event.getStartupStep().getName().equals("refresh"))
+                .findFirst().orElseThrow().getDuration().toMillis();
+        assertThat(times.get("phase refresh")).isBetween(50L, 99L);
+        assertThat(times.get("phase beans")).isLessThan(50L);
+        assertThat(times.get("phase spring.beans.instantiate")).isBetween(150L, 199L);
+        assertThat(times.get("bean repository")).isBetween(100L, 149L);
+        assertThat(times.get("bean service")).isBetween(50L, 99L);
+        assertThat(times.get("phase refresh") + times.get("phase beans") + times.get("phase spring.beans.instantiate"))
+                .isBetween(total - 3, total);
+        System.out.println("UNIT TEST: testSelfTimes COMPLETED successfully.");
+    }
+
+    /**
+     * Runs the report on the recorded steps.
+     *
+     * @return the logged times in milliseconds, by "phase" or "bean" and name.
+     */
+    private static Map<String, Long> report(BufferingApplicationStartup startup) {
+        StartupTimingReport report = new StartupTimingReport();
+        ReflectionTestUtils.setField(report, "topBeans", 10);
+        ConfigurableApplicationContext context = mock(ConfigurableApplicationContext.class);
+        when(context.getApplicationStartup()).thenReturn(startup);
+
+        Logger logger = (Logger) LoggerFactory.getLogger(StartupTimingReport.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            report.report(new ApplicationReadyEvent(new SpringApplication(), new String[0], context,
+                    Duration.ofSeconds(1)));
+        } finally {
+            logger.detachAppender(appender);
+        }
+        return appender.list.stream()
+                .filter(event -> event.getMessage().startsWith("Startup "))
+                .collect(Collectors.toMap(
+                        event -> event.getMessage().substring("Startup ".length(), event.getMessage().indexOf(' ', 8))
+                                + " " + event.getArgumentArray()[0],
+                        event -> ((Number) event.getArgumentArray()[1]).longValue()));
+    }
+}